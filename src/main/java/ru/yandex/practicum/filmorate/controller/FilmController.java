@@ -1,13 +1,22 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.InputStream;
 import java.util.*;
 
 @RestController
@@ -16,22 +25,58 @@ import java.util.*;
 @RequiredArgsConstructor
 public class FilmController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final FilmService filmService;
+    private final FilmImportService filmImportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable Integer id) {
+    public Film getFilmById(@PathVariable Integer id, WebRequest request) {
         log.info("Получение фильма с ID: {}", id);
+        // ETag берётся из версии до загрузки фильма: если запись успеет пройти между ними,
+        // клиент получит более новое тело со старой меткой и просто перезапросит его позже.
+        // Сверка с If-None-Match идёт только после загрузки: для несуществующего id метка совпала бы
+        // с меткой фильма без записей и лайков, и вместо 404 ушёл бы 304
+        String etag = filmService.filmEtag(id);
         Film film = filmService.filmById(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         sortGenres(film);
         return film;
     }
 
     @GetMapping
-    public Collection<Film> findAll() {
-        log.info("Получение всех фильмов");
-        Collection<Film> films = filmService.findAll();
-        films.forEach(this::sortGenres);
-        return films;
+    public ResponseEntity<Collection<Film>> findAll(@RequestParam(required = false) Integer after,
+                                                    @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получение всех фильмов");
+            Collection<Film> films = filmService.findAll();
+            films.forEach(this::sortGenres);
+            return ResponseEntity.ok(films);
+        }
+        log.info("Получение страницы фильмов после ID {} (лимит {})", after, limit);
+        Page<Film> page = filmService.findPage(after, limit != null ? limit : DEFAULT_PAGE_SIZE);
+        page.getItems().forEach(this::sortGenres);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+        return response.body(page.getItems());
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStats getCacheStats() {
+        log.info("Получение статистики кэша фильмов");
+        return filmService.getCacheStats();
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        log.info("Выгрузка каталога фильмов в NDJSON");
+        return NdjsonResponses.stream(objectMapper, lines -> filmService.exportAll(lines::accept));
     }
 
     @PostMapping
@@ -42,6 +87,15 @@ public class FilmController {
         return createdFilm;
     }
 
+    // Результаты по элементам уходят строками NDJSON по мере вставки пачек: если загрузка оборвётся,
+    // клиент уже знает, какие фильмы созданы
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonResponses.NDJSON},
+            produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> bulkCreate(InputStream body) {
+        log.info("Массовая загрузка фильмов");
+        return NdjsonResponses.stream(objectMapper, lines -> filmImportService.importFilms(body, lines::accept));
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film film) {
         log.info("Обновление фильма с ID: {}", film.getId());
@@ -58,9 +112,29 @@ public class FilmController {
 
     @GetMapping("/popular")
     public Collection<Film> getPopularFilms(
-            @RequestParam(defaultValue = "10") Integer count) {
-        log.info("Получение {} популярных фильмов", count);
-        List<Film> films = filmService.getTopFilms(count);
+            @RequestParam(defaultValue = "10") Integer count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer year) {
+        log.info("Получение {} популярных фильмов (жанр {}, год {})", count, genreId, year);
+        List<Film> films = filmService.getTopFilms(count, genreId, year);
+        films.forEach(this::sortGenres);
+        return films;
+    }
+
+    @GetMapping("/trending")
+    public Collection<Film> getTrendingFilms(@RequestParam(defaultValue = "10") Integer count,
+                                             @RequestParam(defaultValue = "24h") String window) {
+        log.info("Получение {} трендовых фильмов за {}", count, window);
+        List<Film> films = filmService.getTrendingFilms(count, window);
+        films.forEach(this::sortGenres);
+        return films;
+    }
+
+    @GetMapping("/{id}/similar")
+    public Collection<Film> getSimilarFilms(@PathVariable Integer id,
+                                            @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получение {} фильмов, похожих на фильм {}", limit, id);
+        List<Film> films = filmService.getSimilarFilms(id, limit);
         films.forEach(this::sortGenres);
         return films;
     }
@@ -6,6 +6,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
@@ -20,14 +21,23 @@ public class GenreController {
     private final GenreService genreService;
 
     @GetMapping
-    public List<Genre> getAllGenres() {
+    public List<Genre> getAllGenres(WebRequest request) {
         log.info("Получен запрос на получение всех жанров");
+        if (request.checkNotModified(genreService.etag())) {
+            return null;
+        }
         return genreService.getAllGenres();
     }
 
     @GetMapping("/{id}")
-    public Genre getGenreById(@PathVariable Integer id) {
+    public Genre getGenreById(@PathVariable Integer id, WebRequest request) {
         log.info("Получен запрос на получение жанра с ID: {}", id);
-        return genreService.getGenreById(id);
+        // Справочник в памяти, поэтому существование проверяется до сверки метки:
+        // общая метка справочников не должна давать 304 на несуществующий id
+        Genre genre = genreService.getGenreById(id);
+        if (request.checkNotModified(genreService.etag())) {
+            return null;
+        }
+        return genre;
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
@@ -17,14 +18,23 @@ public class MpaController {
     private final MpaService mpaService;
 
     @GetMapping
-    public List<Mpa> getAllMpa() {
+    public List<Mpa> getAllMpa(WebRequest request) {
         log.info("Получен запрос на получение всех рейтингов MPA");
+        if (request.checkNotModified(mpaService.etag())) {
+            return null;
+        }
         return mpaService.getAllMpa();
     }
 
     @GetMapping("/{id}")
-    public Mpa getMpaById(@PathVariable Integer id) {
+    public Mpa getMpaById(@PathVariable Integer id, WebRequest request) {
         log.info("Получен запрос на получение рейтинга MPA с ID: {}", id);
-        return mpaService.getMpaById(id);
+        // Справочник в памяти, поэтому существование проверяется до сверки метки:
+        // общая метка справочников не должна давать 304 на несуществующий id
+        Mpa mpa = mpaService.getMpaById(id);
+        if (request.checkNotModified(mpaService.etag())) {
+            return null;
+        }
+        return mpa;
     }
 }
\ No newline at end of file
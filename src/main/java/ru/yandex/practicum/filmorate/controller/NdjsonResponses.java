@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+// Потоковые ответы NDJSON: каждый объект пишется отдельной строкой JSON в UTF-8 сразу, как только получен
+final class NdjsonResponses {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private static final MediaType NDJSON_UTF8 = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
+    private NdjsonResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> stream(ObjectMapper objectMapper, Producer producer) {
+        StreamingResponseBody body = outputStream -> producer.produce(value -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(value));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(NDJSON_UTF8)
+                .body(body);
+    }
+
+    // Источник строк: передаёт объекты приёмнику по одному, пока поток ответа открыт
+    @FunctionalInterface
+    interface Producer {
+        void produce(Consumer<Object> lines) throws IOException;
+    }
+}
@@ -1,13 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.UserImportService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 @RestController
@@ -16,17 +26,36 @@ import java.util.Collection;
 @Validated
 public class UserController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final UserService userService;
+    private final RecommendationService recommendationService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, RecommendationService recommendationService,
+                          UserImportService userImportService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.recommendationService = recommendationService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public Collection<User> findAll() {
-        log.info("Получен запрос на получение всех пользователей");
-        return userService.findAll();
+    public ResponseEntity<Collection<User>> findAll(@RequestParam(required = false) Integer after,
+                                                    @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех пользователей");
+            return ResponseEntity.ok(userService.findAll());
+        }
+        Page<User> page = userService.findPage(after, limit != null ? limit : DEFAULT_PAGE_SIZE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+        return response.body(page.getItems());
     }
 
     @PostMapping
@@ -35,6 +64,14 @@ public class UserController {
         return userService.create(user);
     }
 
+    // Как и у фильмов, результаты по строкам уходят NDJSON по мере вставки пачек
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonResponses.NDJSON},
+            produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> bulkCreate(InputStream body) {
+        log.info("Массовая загрузка пользователей");
+        return NdjsonResponses.stream(objectMapper, lines -> userImportService.importUsers(body, lines::accept));
+    }
+
     @PutMapping
     public User update(@Valid @RequestBody User updatedUser) {
         log.info("Попытка обновления пользователя с ID: {}", updatedUser.getId());
@@ -48,9 +85,15 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public User userById(@PathVariable Integer id) {
+    public User userById(@PathVariable Integer id, WebRequest request) {
         log.info("Поиск пользователя с ID: {}", id);
-        return userService.userById(id);
+        // Как и у фильмов: метка до загрузки, сверка после проверки существования
+        String etag = userService.userEtag(id);
+        User user = userService.userById(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return user;
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -71,6 +114,26 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> getFriendSuggestions(@PathVariable Integer id,
+                                                 @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получение рекомендаций друзей для пользователя {}", id);
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public Collection<User> getFriendshipPath(@PathVariable Integer id, @PathVariable Integer otherId) {
+        log.info("Поиск цепочки дружбы от пользователя {} до пользователя {}", id, otherId);
+        return userService.getFriendshipPath(id, otherId);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> getRecommendations(@PathVariable Integer id,
+                                               @RequestParam(defaultValue = "10") Integer limit) {
+        log.info("Получение рекомендаций фильмов для пользователя {}", id);
+        return recommendationService.getRecommendations(id, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getCommonFriends(@PathVariable Integer id, @PathVariable Integer otherId) {
         log.info("Поиск общих друзей для пользователей {} и {}", id, otherId);
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.dal.mappers;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Группирует пары (ключ, значение) из запроса, отсортированного по первому столбцу, в массивы значений
+// по ключу: первый столбец — целочисленный ключ, второй — значение
+public final class GroupingExtractor<T> implements ResultSetExtractor<Map<Integer, T>> {
+    private final ValueReader valueReader;
+    private final Packer<T> packer;
+
+    private GroupingExtractor(ValueReader valueReader, Packer<T> packer) {
+        this.valueReader = valueReader;
+        this.packer = packer;
+    }
+
+    // Значения — целые числа, например id связанных сущностей
+    public static GroupingExtractor<int[]> ints() {
+        return new GroupingExtractor<>(rs -> rs.getInt(2), (buffer, size) -> {
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = (int) buffer[i];
+            }
+            return values;
+        });
+    }
+
+    // Значения — моменты времени в миллисекундах
+    public static GroupingExtractor<long[]> timestamps() {
+        return new GroupingExtractor<>(rs -> rs.getTimestamp(2).getTime(), Arrays::copyOf);
+    }
+
+    @Override
+    public Map<Integer, T> extractData(ResultSet rs) throws SQLException {
+        Map<Integer, T> groups = new HashMap<>();
+        long[] buffer = new long[16];
+        int size = 0;
+        int currentKey = 0;
+        while (rs.next()) {
+            int key = rs.getInt(1);
+            if (size > 0 && key != currentKey) {
+                groups.put(currentKey, packer.pack(buffer, size));
+                size = 0;
+            }
+            currentKey = key;
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = valueReader.read(rs);
+        }
+        if (size > 0) {
+            groups.put(currentKey, packer.pack(buffer, size));
+        }
+        return groups;
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        long read(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Packer<T> {
+        T pack(long[] buffer, int size);
+    }
+}
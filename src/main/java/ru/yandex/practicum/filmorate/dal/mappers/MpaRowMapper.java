@@ -11,9 +11,6 @@ import java.sql.SQLException;
 public class MpaRowMapper implements RowMapper<Mpa> {
     @Override
     public Mpa mapRow(ResultSet rs, int rowNum) throws SQLException {
-        Mpa mpa = new Mpa();
-        mpa.setId(rs.getInt("mpa_id"));
-        mpa.setName(rs.getString("name"));
-        return mpa;
+        return new Mpa(rs.getInt("mpa_id"), rs.getString("name"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+@Data
+public class CacheStats {
+    private final long size;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final double hitRate;
+
+    private final long loads;
+
+    private final long evictions;
+
+    private final double averageLoadPenaltyMillis;
+}
@@ -1,6 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import java.time.LocalDate;
@@ -28,10 +28,10 @@ public class Film {
 
     private Set<Genre> genres = new HashSet<>();
 
-    @JsonIgnore
-    private Set<Integer> likes = new HashSet<>();
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int likeCount;
 
-    public int getLikeCount() {
-        return likes != null ? likes.size() : 0;
-    }
+    // Версия строки для оптимистической блокировки: если передана в PUT, обновление пройдёт только
+    // при совпадении с текущей версией в БД
+    private Long version;
 }
\ No newline at end of file
@@ -1,19 +1,20 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.EqualsAndHashCode;
+import lombok.Value;
 
-@Data
+// Неизменяемый: один экземпляр из ReferenceDataRegistry разделяется всеми фильмами этого жанра
+@Value
 @EqualsAndHashCode(of = "id")
 public class Genre {
-    private Integer id;
-    private String name;
+    Integer id;
+    String name;
 
-    public Genre() {
-    }
-
-    public Genre(Integer id, String name) {
+    @JsonCreator
+    public Genre(@JsonProperty("id") Integer id, @JsonProperty("name") String name) {
         this.id = id;
         this.name = name;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+// Результат обработки одного элемента массовой загрузки: index — позиция элемента во входном потоке
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+    private final int index;
+
+    private final Status status;
+
+    private final Integer id;
+
+    private final String error;
+
+    public static ImportResult created(int index, Integer id) {
+        return new ImportResult(index, Status.CREATED, id, null);
+    }
+
+    public static ImportResult invalid(int index, String error) {
+        return new ImportResult(index, Status.INVALID, null, error);
+    }
+
+    public static ImportResult conflict(int index, String error) {
+        return new ImportResult(index, Status.CONFLICT, null, error);
+    }
+
+    public static ImportResult failed(int index, String error) {
+        return new ImportResult(index, Status.FAILED, null, error);
+    }
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        CONFLICT,
+        FAILED
+    }
+}
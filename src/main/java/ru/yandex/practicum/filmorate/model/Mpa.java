@@ -1,10 +1,19 @@
 package ru.yandex.practicum.filmorate.model;
 
-import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
 
-@Data
+// Неизменяемый: один экземпляр из ReferenceDataRegistry разделяется всеми фильмами с этим рейтингом
+@Value
 public class Mpa {
-    private Integer id;
+    Integer id;
 
-    private String name;
-}
\ No newline at end of file
+    String name;
+
+    @JsonCreator
+    public Mpa(@JsonProperty("id") Integer id, @JsonProperty("name") String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
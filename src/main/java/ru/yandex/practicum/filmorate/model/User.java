@@ -22,4 +22,7 @@ public class User {
     @NotNull(message = "Дата рождения не может быть null")
     @Past(message = "Дата рождения не может быть в будущем")
     private LocalDate birthday;
+
+    // Версия строки для оптимистической блокировки, см. Film.version
+    private Long version;
 }
\ No newline at end of file
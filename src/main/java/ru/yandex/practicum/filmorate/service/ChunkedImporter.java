@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Общий цикл массовой загрузки: элементы читаются JsonItemReader, разбираются parser (IllegalArgumentException —
+// некорректный элемент) и копятся в пачки, которые записывает writer. Пачка сбрасывается, когда с прошлого сброса
+// набралось chunk-size элементов, поэтому в памяти держится не больше chunk-size результатов. Результаты отдаются
+// потребителю в порядке элементов сразу после записи пачки. Если запись пачки отклонила БД, её элементы
+// помечаются FAILED и загрузка продолжается
+@Slf4j
+class ChunkedImporter<T> {
+    static final String NOT_SAVED = "Не сохранено из-за ошибки базы данных, элемент можно отправить повторно";
+
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final Function<JsonNode, T> parser;
+    private final ChunkWriter<T> writer;
+
+    ChunkedImporter(ObjectMapper objectMapper, int chunkSize, Function<JsonNode, T> parser, ChunkWriter<T> writer) {
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.parser = parser;
+        this.writer = writer;
+    }
+
+    // Возвращает число элементов по статусам — для журнала
+    Map<ImportResult.Status, Integer> run(InputStream body, Consumer<ImportResult> consumer) throws IOException {
+        Chunk chunk = new Chunk(consumer);
+        JsonItemReader reader = new JsonItemReader(objectMapper, body);
+        try (reader) {
+            for (JsonNode node = reader.next(); node != null; node = reader.next()) {
+                int index = reader.nextIndex() - 1;
+                try {
+                    chunk.add(index, parser.apply(node));
+                } catch (IllegalArgumentException e) {
+                    chunk.reject(ImportResult.invalid(index, e.getMessage()));
+                }
+                if (chunk.size() == chunkSize) {
+                    chunk.flush();
+                }
+            }
+        } catch (JsonParseException e) {
+            // После синтаксической ошибки границы следующих элементов неизвестны — загрузка останавливается,
+            // уже разобранные элементы сохраняются
+            chunk.reject(ImportResult.invalid(reader.nextIndex(), "Некорректный JSON: " + e.getOriginalMessage()));
+        }
+        chunk.flush();
+        return chunk.totals;
+    }
+
+    // Записывает пачку и возвращает результаты в порядке её элементов
+    @FunctionalInterface
+    interface ChunkWriter<T> {
+        List<ImportResult> write(List<T> items, List<Integer> indexes);
+    }
+
+    // Элементы с последнего сброса: результаты всех элементов по порядку, на местах корректных —
+    // FAILED, пока пачка не записана
+    private class Chunk {
+        private final Consumer<ImportResult> consumer;
+        private final List<ImportResult> results = new ArrayList<>(chunkSize);
+        private final List<T> items = new ArrayList<>(chunkSize);
+        private final List<Integer> indexes = new ArrayList<>(chunkSize);
+        private final List<Integer> slots = new ArrayList<>(chunkSize);
+        private final Map<ImportResult.Status, Integer> totals = new EnumMap<>(ImportResult.Status.class);
+
+        Chunk(Consumer<ImportResult> consumer) {
+            this.consumer = consumer;
+        }
+
+        int size() {
+            return results.size();
+        }
+
+        void add(int index, T item) {
+            items.add(item);
+            indexes.add(index);
+            slots.add(results.size());
+            results.add(ImportResult.failed(index, NOT_SAVED));
+        }
+
+        void reject(ImportResult result) {
+            results.add(result);
+        }
+
+        void flush() {
+            if (!items.isEmpty()) {
+                try {
+                    List<ImportResult> written = writer.write(items, indexes);
+                    for (int i = 0; i < written.size(); i++) {
+                        results.set(slots.get(i), written.get(i));
+                    }
+                } catch (DataAccessException e) {
+                    log.warn("Пачка из {} элементов не записана: {}", items.size(), e.getMessage());
+                }
+            }
+            for (ImportResult result : results) {
+                totals.merge(result.getStatus(), 1, Integer::sum);
+                consumer.accept(result);
+            }
+            results.clear();
+            items.clear();
+            indexes.clear();
+            slots.clear();
+        }
+    }
+}
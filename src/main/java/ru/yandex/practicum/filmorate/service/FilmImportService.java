@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Массовая загрузка фильмов из JSON-массива или NDJSON через ChunkedImporter: каждый элемент проверяется
+// по аннотациям модели и справочникам в памяти, корректные фильмы вставляются пачками FilmDbStorage.createBatch.
+// Пачка вставляется в одной транзакции, поэтому фильмы отклонённой БД пачки (FAILED) можно отправить повторно,
+// не рискуя дубликатами
+@Slf4j
+@Service
+public class FilmImportService {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final FilmService filmService;
+    private final FilmDbStorage filmStorage;
+    private final ChunkedImporter<Film> importer;
+
+    public FilmImportService(ObjectMapper objectMapper, Validator validator, FilmService filmService,
+                             FilmDbStorage filmStorage,
+                             @Value("${filmorate.import.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.filmService = filmService;
+        this.filmStorage = filmStorage;
+        this.importer = new ChunkedImporter<>(objectMapper, chunkSize, this::parse, this::insert);
+    }
+
+    public void importFilms(InputStream body, Consumer<ImportResult> consumer) throws IOException {
+        log.info("Массовая загрузка фильмов: {}", importer.run(body, consumer));
+    }
+
+    private Film parse(JsonNode node) {
+        Film film;
+        try {
+            film = objectMapper.treeToValue(node, Film.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный фильм: " + (e instanceof JsonProcessingException jsonError
+                    ? jsonError.getOriginalMessage()
+                    : e.getMessage()));
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        try {
+            film.setId(null);
+            filmService.prepareForCreate(film);
+        } catch (ValidationException | NotFoundException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        return film;
+    }
+
+    private List<ImportResult> insert(List<Film> films, List<Integer> indexes) {
+        List<Film> created = filmStorage.createBatch(films);
+        filmService.registerCreated(created);
+        List<ImportResult> results = new ArrayList<>(created.size());
+        for (int i = 0; i < created.size(); i++) {
+            results.add(ImportResult.created(indexes.get(i), created.get(i).getId()));
+        }
+        return results;
+    }
+}
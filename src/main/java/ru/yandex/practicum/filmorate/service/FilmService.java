@@ -4,84 +4,307 @@ import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.film.ApproximateLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
-import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.SimilarFilm;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.LikeEvent;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 public class FilmService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_POPULAR = 1000;
+    private static final int MAX_TRENDING = 1000;
+    private static final int MAX_SIMILAR = 100;
+    private static final Pattern WINDOW = Pattern.compile("(\\d{1,6})([mhd])");
+
     private final FilmDbStorage filmStorage;
-    private final UserDbStorage userStorage;
-    private final MpaDbStorage mpaStorage;
-    private final GenreDbStorage genreStorage;
+    private final UserCache userCache;
+    private final ReferenceDataRegistry referenceData;
+    private final FilmLeaderboard leaderboard;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final LikeIndex likeIndex;
+    private final TrendingFilms trendingFilms;
+    private final ApproximateLeaderboard approximateLeaderboard;
+    private final FilmCache filmCache;
+    private final EntityVersions versions;
 
-    public FilmService(FilmDbStorage filmStorage, UserDbStorage userStorage, MpaDbStorage mpaStorage, GenreDbStorage genreStorage) {
+    public FilmService(FilmDbStorage filmStorage, UserCache userCache, ReferenceDataRegistry referenceData,
+                       FilmLeaderboard leaderboard, LikeWriteBehindBuffer likeBuffer, LikeIndex likeIndex,
+                       TrendingFilms trendingFilms, ApproximateLeaderboard approximateLeaderboard,
+                       FilmCache filmCache, EntityVersions versions) {
         this.filmStorage = filmStorage;
-        this.userStorage = userStorage;
-        this.mpaStorage = mpaStorage;
-        this.genreStorage = genreStorage;
+        this.userCache = userCache;
+        this.referenceData = referenceData;
+        this.leaderboard = leaderboard;
+        this.likeBuffer = likeBuffer;
+        this.likeIndex = likeIndex;
+        this.trendingFilms = trendingFilms;
+        this.approximateLeaderboard = approximateLeaderboard;
+        this.filmCache = filmCache;
+        this.versions = versions;
     }
 
     public void addLike(Integer filmId, Integer userId) {
-        filmStorage.validateFilmExists(filmId);
-        userStorage.validateUserExists(userId);
-        filmStorage.addLike(filmId, userId);
+        filmStorage.validateFilmsExist(List.of(filmId));
+        userCache.validateExist(List.of(userId));
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(new LikeEvent(filmId, userId, true));
+        } else if (filmStorage.addLike(filmId, userId)) {
+            leaderboard.increment(filmId, 1);
+            likeIndex.like(filmId, userId);
+            trendingFilms.record(filmId, 1, System.currentTimeMillis());
+            approximateLeaderboard.record(filmId, 1);
+        }
     }
 
     public void removeLike(Integer filmId, Integer userId) {
-        filmStorage.validateFilmExists(filmId);
-        userStorage.validateUserExists(userId);
-        filmStorage.removeLike(filmId, userId);
+        filmStorage.validateFilmsExist(List.of(filmId));
+        userCache.validateExist(List.of(userId));
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(new LikeEvent(filmId, userId, false));
+            return;
+        }
+        OptionalLong likedAt = filmStorage.removeLike(filmId, userId);
+        if (likedAt.isPresent()) {
+            leaderboard.increment(filmId, -1);
+            likeIndex.unlike(filmId, userId);
+            trendingFilms.record(filmId, -1, likedAt.getAsLong());
+            approximateLeaderboard.record(filmId, -1);
+        }
     }
 
     public List<Film> getTopFilms(Integer count) {
-        log.info("Получение списка {} популярных фильмов.", count);
-        return filmStorage.getTopFilms(count);
+        return getTopFilms(count, null, null);
+    }
+
+    public List<Film> getTopFilms(Integer count, Integer genreId, Integer year) {
+        log.info("Получение списка {} популярных фильмов (жанр {}, год {}).", count, genreId, year);
+        if (count == null || count < 1 || count > MAX_POPULAR) {
+            throw new ValidationException("Число популярных фильмов должно быть от 1 до " + MAX_POPULAR);
+        }
+        if (genreId != null && !referenceData.genreExists(genreId)) {
+            throw new NotFoundException("Жанр с id " + genreId + " не найден");
+        }
+        if (approximateLeaderboard.isEnabled()) {
+            return approximateTop(count, genreId, year);
+        }
+        return filmStorage.findByIds(leaderboard.top(count, genreId, year));
+    }
+
+    // Точный рейтинг в приближённом режиме не ведётся: фильтр по жанру и году применяется
+    // к лидерам сводки Space-Saving, поэтому в отфильтрованный топ попадают только они
+    private List<Film> approximateTop(int count, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return filmStorage.findByIds(approximateLeaderboard.top(count));
+        }
+        List<Film> films = new ArrayList<>();
+        for (Film film : filmStorage.findByIds(approximateLeaderboard.top(Integer.MAX_VALUE))) {
+            if (films.size() >= count) {
+                break;
+            }
+            boolean genreMatches = genreId == null || film.getGenres() != null
+                    && film.getGenres().stream().anyMatch(genre -> genreId.equals(genre.getId()));
+            boolean yearMatches = year == null || film.getReleaseDate() != null
+                    && year.equals(film.getReleaseDate().getYear());
+            if (genreMatches && yearMatches) {
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
+    // Фильмы с наибольшим числом лайков за окно вида 90m, 24h или 7d; окно округляется вверх до корзин
+    public List<Film> getTrendingFilms(Integer count, String window) {
+        log.info("Получение {} трендовых фильмов за {}", count, window);
+        if (count == null || count < 1 || count > MAX_TRENDING) {
+            throw new ValidationException("Число трендовых фильмов должно быть от 1 до " + MAX_TRENDING);
+        }
+        Matcher matcher = WINDOW.matcher(window == null ? "" : window.trim());
+        if (!matcher.matches()) {
+            throw new ValidationException("Окно должно быть задано в виде 90m, 24h или 7d");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        Duration duration = switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+        long bucketMillis = trendingFilms.getBucketMillis();
+        long buckets = (duration.toMillis() + bucketMillis - 1) / bucketMillis;
+        if (buckets < 1 || buckets > trendingFilms.getBucketCount()) {
+            throw new ValidationException("Окно должно быть от 1 до " + trendingFilms.getBucketCount() +
+                    " интервалов по " + Duration.ofMillis(bucketMillis).toMinutes() + " мин");
+        }
+        return filmStorage.findByIds(trendingFilms.top(count, (int) buckets));
+    }
+
+    // Похожие фильмы по коэффициенту Жаккара лайкнувших; при равном сходстве выше фильм
+    // с большим числом общих жанров. Из БД загружаются только кандидаты, прошедшие отсечку по limit
+    public List<Film> getSimilarFilms(Integer filmId, int limit) {
+        log.info("Поиск {} фильмов, похожих на фильм {}", limit, filmId);
+        if (limit < 1 || limit > MAX_SIMILAR) {
+            throw new ValidationException("Число похожих фильмов должно быть от 1 до " + MAX_SIMILAR);
+        }
+        Film film = filmCache.get(filmId);
+        List<SimilarFilm> similar = likeIndex.similar(filmId);
+        if (similar.isEmpty()) {
+            return new ArrayList<>();
+        }
+        double cutoff = similar.get(Math.min(limit, similar.size()) - 1).jaccard();
+        Map<Integer, Double> jaccardById = new HashMap<>();
+        List<Integer> candidateIds = new ArrayList<>();
+        for (SimilarFilm candidate : similar) {
+            if (candidate.jaccard() < cutoff) {
+                break;
+            }
+            jaccardById.put(candidate.filmId(), candidate.jaccard());
+            candidateIds.add(candidate.filmId());
+        }
+        List<Film> candidates = filmStorage.findByIds(candidateIds);
+        candidates.sort(Comparator.<Film>comparingDouble(candidate -> jaccardById.get(candidate.getId())).reversed()
+                .thenComparing(Comparator.<Film>comparingInt(candidate -> sharedGenres(film, candidate)).reversed())
+                .thenComparingInt(Film::getId));
+        return new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size())));
     }
 
     public Collection<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    public void exportAll(Consumer<Film> consumer) {
+        log.info("Выгрузка всего каталога фильмов");
+        filmStorage.exportAll(consumer);
+    }
+
+    public Page<Film> findPage(Integer after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        List<Film> films = filmStorage.findPage(after, limit + 1);
+        if (films.size() > limit) {
+            List<Film> items = new ArrayList<>(films.subList(0, limit));
+            return new Page<>(items, items.get(limit - 1).getId());
+        }
+        return new Page<>(films, null);
+    }
+
     public Film create(Film film) {
+        prepareForCreate(film);
+        Film created = filmStorage.create(film);
+        registerCreated(List.of(created));
+        return created;
+    }
+
+    // Проверяет дату релиза, MPA и жанры по справочникам в памяти и подставляет их канонические экземпляры
+    void prepareForCreate(Film film) {
         validateFilmInTheFuture(film);
         if (film.getMpa() != null && film.getMpa().getId() != null) {
-            mpaStorage.findById(film.getMpa().getId());
+            film.setMpa(referenceData.getMpa(film.getMpa().getId()));
         } else {
             throw new ValidationException("MPA должен быть указан");
         }
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
+            Set<Genre> genres = new LinkedHashSet<>();
             for (Genre genre : film.getGenres()) {
                 if (genre.getId() == null) {
                     throw new ValidationException("ID жанра не может быть null");
                 }
-                if (!genreStorage.existsById(genre.getId())) {
+                if (!referenceData.genreExists(genre.getId())) {
                     throw new NotFoundException("Жанр с id " + genre.getId() + " не найден");
                 }
+                genres.add(referenceData.getGenre(genre.getId()));
             }
+            film.setGenres(genres);
         }
-        return filmStorage.create(film);
+    }
+
+    void registerCreated(List<Film> created) {
+        filmCache.invalidateAll(created.stream().map(Film::getId).toList());
+        created.forEach(leaderboard::describe);
+    }
+
+    // Лайки удалённого пользователя (фильм -> момент постановки лайка): like_count уже уменьшен
+    // в транзакции удаления, здесь вслед за ним обновляются рейтинги в памяти
+    void unregisterLikes(Map<Integer, Long> likedAt) {
+        if (likedAt.isEmpty()) {
+            return;
+        }
+        likedAt.forEach((filmId, likedAtMillis) -> {
+            leaderboard.increment(filmId, -1);
+            trendingFilms.record(filmId, -1, likedAtMillis);
+            approximateLeaderboard.record(filmId, -1);
+        });
     }
 
     public Film update(Film film) {
-        return filmStorage.update(film);
+        Film updated = filmStorage.update(film);
+        filmCache.invalidate(updated.getId());
+        leaderboard.describe(updated);
+        return updated;
     }
 
     public String remove(Integer id) {
-        return filmStorage.remove(id);
+        String result = filmStorage.remove(id);
+        filmCache.invalidate(id);
+        leaderboard.remove(id);
+        likeIndex.removeFilm(id);
+        trendingFilms.remove(id);
+        approximateLeaderboard.remove(id);
+        return result;
     }
 
+    // Лайки не сбрасывают кэш и версию фильма, поэтому likeCount берётся из индекса лайков,
+    // а не из закэшированной копии: частые лайки популярных фильмов не вытесняют их из кэша
     public Film filmById(Integer id) {
-        return filmStorage.filmById(id);
+        Film film = filmCache.get(id);
+        film.setLikeCount(likeIndex.likeCount(id));
+        return film;
+    }
+
+    public String filmEtag(Integer id) {
+        return versions.filmEtag(id, likeIndex.likeCount(id));
+    }
+
+    public CacheStats getCacheStats() {
+        return filmCache.stats();
+    }
+
+    private static int sharedGenres(Film film, Film other) {
+        int shared = 0;
+        for (Genre genre : other.getGenres()) {
+            if (film.getGenres().contains(genre)) {
+                shared++;
+            }
+        }
+        return shared;
     }
 
     private void validateFilmInTheFuture(Film film) {
@@ -4,7 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 
 import java.util.List;
 
@@ -12,15 +13,20 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class GenreService {
-    private final GenreStorage genreStorage;
+    private final ReferenceDataRegistry referenceData;
+    private final EntityVersions versions;
 
     public List<Genre> getAllGenres() {
         log.info("Получение всех жанров");
-        return genreStorage.findAll();
+        return referenceData.getAllGenres();
     }
 
     public Genre getGenreById(Integer id) {
         log.info("Получение жанра с ID: {}", id);
-        return genreStorage.findById(id);
+        return referenceData.getGenre(id);
     }
-}
\ No newline at end of file
+
+    public String etag() {
+        return versions.referenceEtag();
+    }
+}
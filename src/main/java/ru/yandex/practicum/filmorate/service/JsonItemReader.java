@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Поэлементное чтение JSON-массива или NDJSON потоковым парсером Jackson: в памяти держится только текущий
+// элемент. Синтаксическая ошибка пробрасывается как JsonParseException, nextIndex() — позиция сломанного элемента
+class JsonItemReader implements Closeable {
+    private final JsonParser parser;
+    private boolean started;
+    private int nextIndex;
+
+    JsonItemReader(ObjectMapper objectMapper, InputStream body) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(body);
+    }
+
+    JsonNode next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        JsonNode node = parser.readValueAsTree();
+        nextIndex++;
+        return node;
+    }
+
+    int nextIndex() {
+        return nextIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.ApproximateLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LikeCountReconciliationJob {
+    private final FilmDbStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final FilmCache filmCache;
+    private final TrendingFilms trendingFilms;
+    private final ApproximateLeaderboard approximateLeaderboard;
+
+    @Scheduled(cron = "${filmorate.likes.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        log.info("Запуск сверки счётчиков лайков");
+        if (filmStorage.reconcileLikeCounts() > 0) {
+            leaderboard.reload();
+            trendingFilms.reload();
+            approximateLeaderboard.reload();
+            filmCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.storage.film.ApproximateLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.LikeBatchResult;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.LikeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Отложенная запись лайков: события копятся в ограниченной очереди и сбрасываются в film_likes
+// пакетами — по заполнению пакета или по таймеру. При переполнении очереди и после начала остановки
+// запрос отклоняется (503)
+@Slf4j
+@Component
+public class LikeWriteBehindBuffer {
+    private final FilmDbStorage filmStorage;
+    private final FilmLeaderboard leaderboard;
+    private final LikeIndex likeIndex;
+    private final TrendingFilms trendingFilms;
+    private final ApproximateLeaderboard approximateLeaderboard;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final BlockingQueue<LikeEvent> queue;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    public LikeWriteBehindBuffer(FilmDbStorage filmStorage, FilmLeaderboard leaderboard, LikeIndex likeIndex,
+                                 TrendingFilms trendingFilms, ApproximateLeaderboard approximateLeaderboard,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                 @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                 @Value("${filmorate.likes.write-behind.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.filmStorage = filmStorage;
+        this.leaderboard = leaderboard;
+        this.likeIndex = likeIndex;
+        this.trendingFilms = trendingFilms;
+        this.approximateLeaderboard = approximateLeaderboard;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена: пакет {}, интервал {} мс", batchSize, flushIntervalMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void submit(LikeEvent event) {
+        if (closed) {
+            throw new ServiceUnavailableException("Сервис останавливается, повторите запрос позже");
+        }
+        try {
+            if (!queue.offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Очередь лайков переполнена, событие {} отклонено", event);
+                throw new ServiceUnavailableException("Сервис перегружен, повторите запрос позже");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Запрос прерван");
+        }
+        // Остановка могла начаться между проверкой и вставкой: если финальный сброс уже прошёл,
+        // событие забирается обратно, и клиент получает 503 вместо молча потерянного лайка
+        if (closed && queue.remove(event)) {
+            throw new ServiceUnavailableException("Сервис останавливается, повторите запрос позже");
+        }
+        if (flusher != null && queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushRequested.set(false);
+                    flushSafely();
+                });
+            } catch (RejectedExecutionException e) {
+                // Остановка началась после проверки closed: событие уже в очереди и попадёт в финальный сброс
+                flushRequested.set(false);
+                log.debug("Сброс очереди лайков не запланирован: буфер останавливается");
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            // Каждый пакет — новый список: записанный пакет может остаться у получателей событий
+            List<LikeEvent> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flush();
+        log.info("Очередь лайков сброшена перед остановкой");
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка при сбросе очереди лайков: {}", e.getMessage());
+        }
+    }
+
+    private void write(List<LikeEvent> batch) {
+        try {
+            LikeBatchResult result = filmStorage.applyLikeBatch(batch);
+            result.likeCounts().forEach(leaderboard::put);
+            long now = System.currentTimeMillis();
+            // В индексы попадает только итоговое событие по каждой паре — то, что реально записано в базу:
+            // промежуточные [лайк, снятие] или [снятие, лайк] в одном пакете не меняют ни тренды, ни рейтинг
+            for (LikeEvent event : LikeEvent.lastPerPair(batch)) {
+                index(event, event.like() ? OptionalLong.of(now) : result.removedLikeTime(event));
+            }
+            log.debug("Записан пакет из {} лайков", batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Пакет из {} лайков не записан ({}), записываем по одному", batch.size(), e.getMessage());
+            batch.forEach(this::writeSingle);
+        }
+    }
+
+    private void writeSingle(LikeEvent event) {
+        try {
+            if (event.like()) {
+                if (filmStorage.addLike(event.filmId(), event.userId())) {
+                    leaderboard.increment(event.filmId(), 1);
+                    index(event, OptionalLong.of(System.currentTimeMillis()));
+                }
+                return;
+            }
+            OptionalLong likedAt = filmStorage.removeLike(event.filmId(), event.userId());
+            if (likedAt.isPresent()) {
+                leaderboard.increment(event.filmId(), -1);
+                index(event, likedAt);
+            }
+        } catch (DataAccessException e) {
+            log.error("Не удалось записать событие {}: {}", event, e.getMessage());
+        }
+    }
+
+    // Индекс лайков знает, менялось ли состояние пары, поэтому повторные события
+    // не попадают ни в окно трендов, ни в приближённый рейтинг. Окно трендов учитывает лайк
+    // в корзине момента его постановки; если момент неизвестен, окно не трогается
+    private void index(LikeEvent event, OptionalLong likedAt) {
+        if (event.like() && likeIndex.like(event.filmId(), event.userId())) {
+            likedAt.ifPresent(time -> trendingFilms.record(event.filmId(), 1, time));
+            approximateLeaderboard.record(event.filmId(), 1);
+        } else if (!event.like() && likeIndex.unlike(event.filmId(), event.userId())) {
+            likedAt.ifPresent(time -> trendingFilms.record(event.filmId(), -1, time));
+            approximateLeaderboard.record(event.filmId(), -1);
+        }
+    }
+}
@@ -4,7 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 
 import java.util.List;
 
@@ -12,15 +13,20 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaStorage mpaStorage;
+    private final ReferenceDataRegistry referenceData;
+    private final EntityVersions versions;
 
     public List<Mpa> getAllMpa() {
         log.info("Запрос на получение всех рейтингов MPA");
-        return mpaStorage.findAll();
+        return referenceData.getAllMpa();
     }
 
     public Mpa getMpaById(Integer id) {
         log.info("Запрос на получение рейтинга MPA с ID: {}", id);
-        return mpaStorage.findById(id);
+        return referenceData.getMpa(id);
     }
-}
\ No newline at end of file
+
+    public String etag() {
+        return versions.referenceEtag();
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ValidationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
+
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationService {
+    private static final int MAX_RECOMMENDATIONS = 100;
+
+    private final FilmDbStorage filmStorage;
+    private final UserCache userCache;
+    private final LikeIndex likeIndex;
+
+    public List<Film> getRecommendations(Integer userId, int limit) {
+        log.info("Подбор {} рекомендаций фильмов для пользователя {}", limit, userId);
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Число рекомендаций должно быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        userCache.validateExist(List.of(userId));
+        return filmStorage.findByIds(likeIndex.recommend(userId, limit));
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+
+@Component
+@RequiredArgsConstructor
+public class TrendingWindowJob {
+    private final TrendingFilms trendingFilms;
+
+    @Scheduled(fixedDelayString = "${filmorate.trending.tick-ms:60000}")
+    public void advance() {
+        trendingFilms.advance(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Массовая загрузка пользователей из JSON-массива или NDJSON через ChunkedImporter. Для пачки занятые email
+// и логины находятся одним запросом IN, повторы внутри загрузки — по множествам в памяти; конфликтующие строки
+// попадают в отчёт, остальные вставляются UserDbStorage.createBatch
+@Slf4j
+@Service
+public class UserImportService {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final UserService userService;
+    private final UserDbStorage userStorage;
+    private final ChunkedImporter<User> importer;
+
+    public UserImportService(ObjectMapper objectMapper, Validator validator, UserService userService,
+                             UserDbStorage userStorage,
+                             @Value("${filmorate.import.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.userService = userService;
+        this.userStorage = userStorage;
+        this.importer = new ChunkedImporter<>(objectMapper, chunkSize, this::parse, this::write);
+    }
+
+    public void importUsers(InputStream body, Consumer<ImportResult> consumer) throws IOException {
+        log.info("Массовая загрузка пользователей: {}", importer.run(body, consumer));
+    }
+
+    private User parse(JsonNode node) {
+        User user;
+        try {
+            user = objectMapper.treeToValue(node, User.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Некорректный пользователь: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        user.setId(null);
+        return user;
+    }
+
+    private List<ImportResult> write(List<User> chunk, List<Integer> chunkIndexes) {
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenLogins = new HashSet<>();
+        for (User existing : userStorage.findByEmailsOrLogins(
+                chunk.stream().map(User::getEmail).collect(Collectors.toSet()),
+                chunk.stream().map(User::getLogin).collect(Collectors.toSet()))) {
+            takenEmails.add(existing.getEmail());
+            takenLogins.add(existing.getLogin());
+        }
+        // Множества пополняются по ходу, поэтому из повторов внутри пачки проходит первый
+        ImportResult[] results = new ImportResult[chunk.size()];
+        List<User> accepted = new ArrayList<>(chunk.size());
+        List<Integer> acceptedSlots = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            User user = chunk.get(i);
+            if (!takenEmails.add(user.getEmail())) {
+                results[i] = ImportResult.conflict(chunkIndexes.get(i), "Email " + user.getEmail() + " уже занят");
+            } else if (!takenLogins.add(user.getLogin())) {
+                takenEmails.remove(user.getEmail());
+                results[i] = ImportResult.conflict(chunkIndexes.get(i), "Логин " + user.getLogin() + " уже занят");
+            } else {
+                accepted.add(user);
+                acceptedSlots.add(i);
+            }
+        }
+        insert(accepted, acceptedSlots, chunkIndexes, results);
+        return Arrays.asList(results);
+    }
+
+    private void insert(List<User> users, List<Integer> slots, List<Integer> chunkIndexes, ImportResult[] results) {
+        if (users.isEmpty()) {
+            return;
+        }
+        List<User> created = new ArrayList<>(users.size());
+        try {
+            created.addAll(userStorage.createBatch(users));
+            for (int i = 0; i < created.size(); i++) {
+                results[slots.get(i)] = ImportResult.created(chunkIndexes.get(slots.get(i)), created.get(i).getId());
+            }
+        } catch (DuplicateKeyException e) {
+            // Email или логин заняли параллельно после проверки — пачка вставляется построчно. Каждая строка —
+            // отдельный оператор, поэтому сбой БД на строке отмечается только на ней
+            log.warn("Пачка пользователей отклонена из-за дубликата, вставка по одному: {}", e.getMessage());
+            for (int i = 0; i < users.size(); i++) {
+                int slot = slots.get(i);
+                int index = chunkIndexes.get(slot);
+                try {
+                    User user = userStorage.create(users.get(i));
+                    created.add(user);
+                    results[slot] = ImportResult.created(index, user.getId());
+                } catch (DuplicateKeyException duplicate) {
+                    results[slot] = ImportResult.conflict(index, "Email " + users.get(i).getEmail() +
+                            " или логин " + users.get(i).getLogin() + " уже занят");
+                } catch (DataAccessException failure) {
+                    results[slot] = ImportResult.failed(index, ChunkedImporter.NOT_SAVED);
+                }
+            }
+        } catch (DataAccessException e) {
+            // Многострочный INSERT — один оператор: строки пачки не записаны, конфликты в отчёте остаются
+            log.warn("Пачка из {} пользователей не вставлена: {}", users.size(), e.getMessage());
+            for (int slot : slots) {
+                results[slot] = ImportResult.failed(chunkIndexes.get(slot), ChunkedImporter.NOT_SAVED);
+            }
+        }
+        userService.registerCreated(created);
+    }
+}
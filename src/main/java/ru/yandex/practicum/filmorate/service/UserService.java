@@ -1,20 +1,43 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 100;
+
     private final UserDbStorage userStorage;
+    private final FriendshipGraph friendshipGraph;
+    private final LikeIndex likeIndex;
+    private final UserCache userCache;
+    private final EntityVersions versions;
+    private final FilmService filmService;
 
-    public UserService(UserDbStorage userStorage) {
+    public UserService(UserDbStorage userStorage, FriendshipGraph friendshipGraph, LikeIndex likeIndex,
+                       UserCache userCache, EntityVersions versions, FilmService filmService) {
         this.userStorage = userStorage;
+        this.friendshipGraph = friendshipGraph;
+        this.likeIndex = likeIndex;
+        this.userCache = userCache;
+        this.versions = versions;
+        this.filmService = filmService;
     }
 
     public Collection<User> findAll() {
@@ -22,38 +45,70 @@ public class UserService {
         return userStorage.findAll();
     }
 
+    public Page<User> findPage(Integer after, int limit) {
+        log.info("Получен запрос на страницу пользователей после ID {} (лимит {})", after, limit);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        List<User> users = userStorage.findPage(after, limit + 1);
+        if (users.size() > limit) {
+            List<User> items = new ArrayList<>(users.subList(0, limit));
+            return new Page<>(items, items.get(limit - 1).getId());
+        }
+        return new Page<>(users, null);
+    }
+
     public User create(User user) {
         log.info("Попытка создания нового пользователя: {}", user);
-        return userStorage.create(user);
+        User created = userStorage.create(user);
+        userCache.invalidate(created.getId());
+        return created;
+    }
+
+    void registerCreated(List<User> created) {
+        created.forEach(user -> userCache.invalidate(user.getId()));
     }
 
     public User update(User updatedUser) {
         log.info("Попытка обновления пользователя с ID: {}", updatedUser.getId());
-        return userStorage.update(updatedUser);
+        User updated = userStorage.update(updatedUser);
+        userCache.invalidate(updatedUser.getId());
+        return updated;
     }
 
     public String remove(Integer id) {
         log.info("Удаление пользователя с ID: {}", id);
-        return userStorage.remove(id);
+        Map<Integer, Long> likedAt = userStorage.removeWithLikes(id);
+        userCache.invalidate(id);
+        friendshipGraph.removeUser(id);
+        likeIndex.removeUser(id);
+        filmService.unregisterLikes(likedAt);
+        return "Пользователь успешно удалён";
     }
 
     public User userById(Integer id) {
         log.info("Поиск пользователя с ID: {}", id);
-        return userStorage.userById(id);
+        return userCache.get(id);
+    }
+
+    public String userEtag(Integer id) {
+        return versions.userEtag(id);
     }
 
     public User validateUserExists(Integer id) {
-        return userStorage.validateUserExists(id);
+        return userCache.get(id);
     }
 
     public void addFriend(Integer userId, Integer friendId) {
         log.info("Пользователь {} добавляет в друзья пользователя {}", userId, friendId);
         userStorage.addFriend(userId, friendId);
+        friendshipGraph.addEdge(userId, friendId);
     }
 
     public void removeFriend(Integer userId, Integer friendId) {
         log.info("Пользователь {} удаляет из друзей пользователя {}", userId, friendId);
         userStorage.removeFriend(userId, friendId);
+        friendshipGraph.removeEdge(userId, friendId);
     }
 
     public List<User> getFriends(Integer userId) {
@@ -61,8 +116,29 @@ public class UserService {
         return userStorage.getFriends(userId);
     }
 
+    public List<User> getFriendSuggestions(Integer userId, int limit) {
+        log.info("Подбор {} рекомендаций друзей для пользователя {}", limit, userId);
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ValidationException("Число рекомендаций должно быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        userCache.validateExist(List.of(userId));
+        return userStorage.findByIds(friendshipGraph.suggestFriends(userId, limit));
+    }
+
+    public List<User> getFriendshipPath(Integer userId, Integer otherId) {
+        log.info("Поиск цепочки дружбы от пользователя {} до пользователя {}", userId, otherId);
+        userCache.validateExist(List.of(userId, otherId));
+        int[] path = friendshipGraph.shortestPath(userId, otherId);
+        if (path.length == 0) {
+            throw new NotFoundException("Цепочка дружбы от пользователя " + userId +
+                    " до пользователя " + otherId + " не найдена");
+        }
+        return userStorage.findByIds(path);
+    }
+
     public List<User> getCommonFriends(Integer userId, Integer otherId) {
         log.info("Поиск общих друзей для пользователей {} и {}", userId, otherId);
-        return userStorage.getCommonFriends(userId, otherId);
+        userCache.validateExist(List.of(userId, otherId));
+        return userStorage.findByIds(friendshipGraph.commonFriends(userId, otherId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Неизменяемое отсортированное множество id, разбитое на блоки до CHUNK_SIZE элементов.
+// Вставка и удаление копируют только затронутый блок и массив ссылок на блоки, а не всё множество,
+// поэтому лайк популярного фильма стоит O(CHUNK_SIZE + n / CHUNK_SIZE), а не O(n).
+// Как и SortedInts, опубликованный экземпляр можно читать без блокировок
+public final class ChunkedSortedInts {
+    static final int CHUNK_SIZE = 512;
+
+    public static final ChunkedSortedInts EMPTY = new ChunkedSortedInts(new int[0][], 0);
+
+    private final int[][] chunks;
+    private final int size;
+
+    private ChunkedSortedInts(int[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    // sorted — отсортированный массив без повторов
+    public static ChunkedSortedInts of(int[] sorted) {
+        if (sorted.length == 0) {
+            return EMPTY;
+        }
+        int[][] chunks = new int[(sorted.length + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Arrays.copyOfRange(sorted, i * CHUNK_SIZE, Math.min(sorted.length, (i + 1) * CHUNK_SIZE));
+        }
+        return new ChunkedSortedInts(chunks, sorted.length);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int value) {
+        return size > 0 && SortedInts.contains(chunks[chunkFor(value)], value);
+    }
+
+    public ChunkedSortedInts insert(int value) {
+        if (size == 0) {
+            return new ChunkedSortedInts(new int[][]{{value}}, 1);
+        }
+        int index = chunkFor(value);
+        int[] chunk = SortedInts.insert(chunks[index], value);
+        if (chunk == chunks[index]) {
+            return this;
+        }
+        if (chunk.length <= CHUNK_SIZE) {
+            int[][] updated = chunks.clone();
+            updated[index] = chunk;
+            return new ChunkedSortedInts(updated, size + 1);
+        }
+        // Переполненный блок делится пополам
+        int[][] updated = new int[chunks.length + 1][];
+        System.arraycopy(chunks, 0, updated, 0, index);
+        updated[index] = Arrays.copyOfRange(chunk, 0, chunk.length / 2);
+        updated[index + 1] = Arrays.copyOfRange(chunk, chunk.length / 2, chunk.length);
+        System.arraycopy(chunks, index + 1, updated, index + 2, chunks.length - index - 1);
+        return new ChunkedSortedInts(updated, size + 1);
+    }
+
+    public ChunkedSortedInts delete(int value) {
+        if (size == 0) {
+            return this;
+        }
+        int index = chunkFor(value);
+        int[] chunk = SortedInts.delete(chunks[index], value);
+        if (chunk == chunks[index]) {
+            return this;
+        }
+        if (size == 1) {
+            return EMPTY;
+        }
+        if (chunk.length > 0) {
+            int[][] updated = chunks.clone();
+            updated[index] = chunk;
+            return new ChunkedSortedInts(updated, size - 1);
+        }
+        int[][] updated = new int[chunks.length - 1][];
+        System.arraycopy(chunks, 0, updated, 0, index);
+        System.arraycopy(chunks, index + 1, updated, index, chunks.length - index - 1);
+        return new ChunkedSortedInts(updated, size - 1);
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int[] chunk : chunks) {
+            for (int value : chunk) {
+                action.accept(value);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        int position = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(chunk, 0, values, position, chunk.length);
+            position += chunk.length;
+        }
+        return values;
+    }
+
+    // Размер пересечения слиянием по блокам без выделения памяти
+    public static int intersectionSize(ChunkedSortedInts first, ChunkedSortedInts second) {
+        int common = 0;
+        int firstChunk = 0;
+        int secondChunk = 0;
+        int i = 0;
+        int j = 0;
+        while (firstChunk < first.chunks.length && secondChunk < second.chunks.length) {
+            int left = first.chunks[firstChunk][i];
+            int right = second.chunks[secondChunk][j];
+            if (left <= right) {
+                if (left == right) {
+                    common++;
+                    if (++j == second.chunks[secondChunk].length) {
+                        secondChunk++;
+                        j = 0;
+                    }
+                }
+                if (++i == first.chunks[firstChunk].length) {
+                    firstChunk++;
+                    i = 0;
+                }
+            } else if (++j == second.chunks[secondChunk].length) {
+                secondChunk++;
+                j = 0;
+            }
+        }
+        return common;
+    }
+
+    // Первый блок, последний элемент которого не меньше value; для value больше всех — последний блок
+    private int chunkFor(int value) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int[] chunk = chunks[middle];
+            if (chunk[chunk.length - 1] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
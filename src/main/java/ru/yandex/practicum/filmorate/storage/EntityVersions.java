@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версии фильмов, пользователей и справочников для ETag. Версия меняется при каждой записи,
+// поэтому If-None-Match сверяется без загрузки и сериализации сущности.
+// Версии живут в памяти: в ETag входит время старта, чтобы после перезапуска старые метки не совпадали
+@Component
+public class EntityVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong clock = new AtomicLong();
+    private final Versions films = new Versions();
+    private final Versions users = new Versions();
+    private volatile long referenceVersion;
+
+    // Лайк не сдвигает версию фильма, поэтому число лайков из тела ответа входит в метку отдельно
+    public String filmEtag(Integer id, int likeCount) {
+        return etag("f", films.get(id) + "-" + likeCount);
+    }
+
+    public String userEtag(Integer id) {
+        return etag("u", users.get(id));
+    }
+
+    public String referenceEtag() {
+        return etag("r", referenceVersion);
+    }
+
+    public void bumpFilm(Integer id) {
+        films.bump(id);
+    }
+
+    public void bumpFilms(Collection<Integer> ids) {
+        ids.forEach(films::bump);
+    }
+
+    public void bumpAllFilms() {
+        films.bumpAll();
+    }
+
+    public void bumpUser(Integer id) {
+        users.bump(id);
+    }
+
+    public void bumpReference() {
+        referenceVersion = clock.incrementAndGet();
+    }
+
+    private String etag(String kind, Object version) {
+        return "\"" + kind + "-" + epoch + "-" + version + "\"";
+    }
+
+    // Все версии берутся из одного счётчика, поэтому после bumpAll() нижняя граница больше любой выданной раньше
+    // версии и записи ниже неё можно удалить. Записи, обновлённые параллельно с bumpAll(), остаются
+    private class Versions {
+        private final Map<Integer, Long> byId = new ConcurrentHashMap<>();
+        private volatile long floor;
+
+        long get(Integer id) {
+            return Math.max(id != null ? byId.getOrDefault(id, 0L) : 0L, floor);
+        }
+
+        void bump(Integer id) {
+            if (id != null) {
+                byId.put(id, clock.incrementAndGet());
+            }
+        }
+
+        void bumpAll() {
+            long newFloor = clock.incrementAndGet();
+            floor = newFloor;
+            byId.values().removeIf(version -> version <= newFloor);
+        }
+    }
+}
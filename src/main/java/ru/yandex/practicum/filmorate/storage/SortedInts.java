@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Операции над отсортированными массивами id для индексов в памяти (граф дружбы, индекс лайков).
+// Массивы не изменяются на месте: вставка и удаление возвращают новый массив, поэтому
+// опубликованный массив можно читать без блокировок
+public final class SortedInts {
+    public static final int[] EMPTY = new int[0];
+
+    private SortedInts() {
+    }
+
+    public static boolean contains(int[] sorted, int value) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    public static int[] insert(int[] sorted, int value) {
+        int position = Arrays.binarySearch(sorted, value);
+        if (position >= 0) {
+            return sorted;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(sorted, insertAt, updated, insertAt + 1, sorted.length - insertAt);
+        return updated;
+    }
+
+    public static int[] delete(int[] sorted, int value) {
+        int position = Arrays.binarySearch(sorted, value);
+        if (position < 0) {
+            return sorted;
+        }
+        int[] updated = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, updated, 0, position);
+        System.arraycopy(sorted, position + 1, updated, position, sorted.length - position - 1);
+        return updated;
+    }
+
+    // Пересечение слиянием за O(n + m)
+    public static int[] intersection(int[] first, int[] second) {
+        int[] common = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    // Размер пересечения без выделения памяти
+    public static int intersectionSize(int[] first, int[] second) {
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    // Обращение списков смежности: для каждой цели — отсортированные id источников
+    public static Map<Integer, int[]> invert(Map<Integer, int[]> adjacency) {
+        Map<Integer, Integer> inDegree = new HashMap<>();
+        adjacency.values().forEach(targets -> {
+            for (int target : targets) {
+                inDegree.merge(target, 1, Integer::sum);
+            }
+        });
+        Map<Integer, int[]> inverted = new HashMap<>();
+        inDegree.forEach((target, degree) -> inverted.put(target, new int[degree]));
+        Map<Integer, Integer> filled = new HashMap<>();
+        adjacency.forEach((source, targets) -> {
+            for (int target : targets) {
+                int position = filled.merge(target, 1, Integer::sum) - 1;
+                inverted.get(target)[position] = source;
+            }
+        });
+        inverted.values().forEach(Arrays::sort);
+        return inverted;
+    }
+}
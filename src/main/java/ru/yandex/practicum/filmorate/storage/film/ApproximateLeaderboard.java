@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Приближённый рейтинг популярности для очень большого потока лайков: Count-Min sketch хранит
+// оценки числа лайков в памяти фиксированного размера, сводка Space-Saving — до capacity лидеров.
+// Ошибка оценки не больше epsilon * (всего лайков) с вероятностью 1 - delta. По умолчанию выключен
+@Slf4j
+@Component
+public class ApproximateLeaderboard {
+    private final FilmDbStorage filmStorage;
+    private final boolean enabled;
+    private final double epsilon;
+    private final double delta;
+    private final int capacity;
+    private CountMinSketch sketch;
+    private SpaceSaving heavyHitters;
+
+    public ApproximateLeaderboard(FilmDbStorage filmStorage,
+                                  @Value("${filmorate.popularity.approximate.enabled:false}") boolean enabled,
+                                  @Value("${filmorate.popularity.approximate.epsilon:0.0001}") double epsilon,
+                                  @Value("${filmorate.popularity.approximate.delta:0.01}") double delta,
+                                  @Value("${filmorate.popularity.approximate.capacity:1000}") int capacity) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        // like_count в этом режиме не ведётся на каждый лайк, поэтому лайки считаются по film_likes
+        Map<Integer, Integer> likeCounts = filmStorage.countLikes();
+        synchronized (this) {
+            sketch = new CountMinSketch(epsilon, delta);
+            heavyHitters = new SpaceSaving(capacity);
+            likeCounts.forEach((filmId, likes) -> {
+                if (likes > 0) {
+                    record(filmId, likes);
+                }
+            });
+        }
+        log.info("Приближённый рейтинг включён: sketch {}x{}, до {} лидеров",
+                sketch.depth(), sketch.width(), capacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void record(int filmId, int likesDelta) {
+        if (!enabled) {
+            return;
+        }
+        heavyHitters.offer(filmId, sketch.add(filmId, likesDelta));
+    }
+
+    // Счётчики sketch удалённого фильма остаются: вычесть их без истинного значения нельзя
+    public synchronized void remove(int filmId) {
+        if (enabled) {
+            heavyHitters.remove(filmId);
+        }
+    }
+
+    public synchronized long estimate(int filmId) {
+        return enabled ? sketch.estimate(filmId) : 0;
+    }
+
+    // Верхняя граница ошибки оценки при текущем объёме потока
+    public synchronized long errorBound() {
+        return enabled ? (long) Math.ceil(epsilon * sketch.total()) : 0;
+    }
+
+    public synchronized List<Integer> top(int count) {
+        return enabled ? heavyHitters.top(Math.min(count, capacity)) : new ArrayList<>();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.SplittableRandom;
+
+// Count-Min sketch: depth строк по width счётчиков. Оценка частоты — минимум по строкам,
+// она не меньше истинной и превышает её не более чем на epsilon * (сумма всех счётчиков)
+// с вероятностью 1 - delta. Память не зависит от числа фильмов
+final class CountMinSketch {
+    private static final long HASH_SEED = 0x2545F4914F6CDD1DL;
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private final long[] multipliers;
+    private final long[] increments;
+    private long total;
+
+    CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon и delta должны быть в интервале (0, 1)");
+        }
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.counters = new long[width * depth];
+        this.multipliers = new long[depth];
+        this.increments = new long[depth];
+        SplittableRandom random = new SplittableRandom(HASH_SEED);
+        for (int row = 0; row < depth; row++) {
+            multipliers[row] = random.nextLong() | 1;
+            increments[row] = random.nextLong();
+        }
+    }
+
+    int width() {
+        return width;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    long total() {
+        return total;
+    }
+
+    // Прибавляет delta (может быть отрицательной при снятии лайка) и возвращает новую оценку
+    long add(int key, int delta) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + column(row, key);
+            counters[index] += delta;
+            estimate = Math.min(estimate, counters[index]);
+        }
+        total += delta;
+        return Math.max(estimate, 0);
+    }
+
+    long estimate(int key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + column(row, key)]);
+        }
+        return Math.max(estimate, 0);
+    }
+
+    private int column(int row, int key) {
+        return (int) (((multipliers[row] * key + increments[row]) >>> 32) % width);
+    }
+}
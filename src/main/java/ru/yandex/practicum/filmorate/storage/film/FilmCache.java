@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+// Кэш фильмов по id перед FilmDbStorage.filmById: ограничен по размеру и времени жизни записи.
+// Одновременные промахи по одному id сводятся к одной загрузке (LoadingCache блокирует ключ на время загрузки).
+// Наружу отдаются копии, чтобы изменения в контроллерах не портили закэшированный экземпляр.
+// Инвалидация вызывается после каждой записи фильма и заодно сдвигает его версию для ETag — уже после сброса
+// записи, чтобы новая метка не могла попасть в ответ со старым телом из кэша. Лайки записью фильма не считаются:
+// likeCount подставляет FilmService из индекса лайков
+@Slf4j
+@Component
+public class FilmCache {
+    private final LoadingCache<Integer, Film> films;
+    private final EntityVersions versions;
+
+    public FilmCache(FilmDbStorage filmStorage, EntityVersions versions,
+                     @Value("${filmorate.cache.films.maximum-size:10000}") long maximumSize,
+                     @Value("${filmorate.cache.films.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.versions = versions;
+        this.films = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build(filmStorage::filmById);
+    }
+
+    public Film get(Integer id) {
+        return copyOf(films.get(id));
+    }
+
+    public void invalidate(Integer id) {
+        films.invalidate(id);
+        versions.bumpFilm(id);
+    }
+
+    public void invalidateAll(Collection<Integer> ids) {
+        films.invalidateAll(ids);
+        versions.bumpFilms(ids);
+    }
+
+    public void invalidateAll() {
+        films.invalidateAll();
+        versions.bumpAllFilms();
+    }
+
+    public CacheStats stats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = films.stats();
+        return new CacheStats(films.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.loadCount(), stats.evictionCount(), stats.averageLoadPenalty() / 1_000_000.0);
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setMpa(film.getMpa());
+        copy.setGenres(film.getGenres() != null ? new LinkedHashSet<>(film.getGenres()) : null);
+        copy.setLikeCount(film.getLikeCount());
+        copy.setVersion(film.getVersion());
+        return copy;
+    }
+}
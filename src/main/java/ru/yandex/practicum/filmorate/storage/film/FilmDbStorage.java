@@ -2,32 +2,46 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
-import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.GroupingExtractor;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int HYDRATION_BATCH_SIZE = 1000;
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private final FilmRowMapper filmRowMapper;
-    private final GenreRowMapper genreRowMapper;
+    private final ReferenceDataRegistry referenceData;
+
+    // В приближённом режиме популярности like_count не обновляется на каждый лайк: рейтинг ведёт
+    // ApproximateLeaderboard, а столбец раз в сутки выравнивает сверка счётчиков
+    @Value("${filmorate.popularity.approximate.enabled:false}")
+    private boolean approximatePopularity;
 
     @Override
     public Film create(Film film) {
@@ -50,6 +64,7 @@ public class FilmDbStorage implements FilmStorage {
         if (key != null) {
             film.setId(key.intValue());
         }
+        film.setVersion(0L);
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
             saveGenres(film.getId(), film.getGenres());
         }
@@ -57,32 +72,80 @@ public class FilmDbStorage implements FilmStorage {
         return film;
     }
 
+    // Вставляет пачку фильмов одним многострочным INSERT и их жанры одним пакетом. Сгенерированные ключи
+    // возвращаются в порядке строк VALUES и проставляются фильмам по позиции
+    @Transactional
+    public List<Film> createBatch(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        String sql = "INSERT INTO film (name, description, release_date, duration, mpa_id) VALUES " +
+                String.join(", ", Collections.nCopies(films.size(), "(?, ?, ?, ?, ?)"));
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"film_id"});
+            int parameter = 1;
+            for (Film film : films) {
+                ps.setString(parameter++, film.getName());
+                ps.setString(parameter++, film.getDescription());
+                ps.setDate(parameter++, java.sql.Date.valueOf(film.getReleaseDate()));
+                ps.setInt(parameter++, film.getDuration());
+                ps.setInt(parameter++, film.getMpa().getId());
+            }
+            return ps;
+        }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> genreRows = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            film.setVersion(0L);
+            if (film.getGenres() != null) {
+                film.getGenres().forEach(genre -> genreRows.add(new Object[]{film.getId(), genre.getId()}));
+            }
+        }
+        if (!genreRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+        }
+        log.info("Пачкой создано {} фильмов", films.size());
+        return films;
+    }
+
+    // Строка фильма и его жанры меняются в одной транзакции: читатели не увидят фильм без жанров,
+    // а UPDATE строки фильма блокирует её, поэтому параллельные правки одного фильма не смешивают жанры
     @Override
+    @Transactional
     public Film update(Film film) {
         if (film.getMpa() == null || film.getMpa().getId() == null) {
             throw new IllegalArgumentException("MPA рейтинг должен быть указан");
         }
-        validateFilmExists(film.getId());
+        if (film.getId() == null) {
+            throw new NotFoundException("Фильм с ID null не найден");
+        }
+        validateFilmsExist(List.of(film.getId()));
+        // Сравнение с версией и её увеличение выполняются одним UPDATE, поэтому из двух параллельных
+        // правок одной версии пройдёт только первая. Без версии в запросе строка перезаписывается как раньше
         String sql = "UPDATE film SET name = ?, description = ?, release_date = ?, " +
-                "duration = ?, mpa_id = ? WHERE film_id = ?";
-        jdbcTemplate.update(sql,
-                film.getName(),
-                film.getDescription(),
-                film.getReleaseDate(),
-                film.getDuration(),
-                film.getMpa().getId(),
-                film.getId());
-        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            saveGenres(film.getId(), film.getGenres());
+                "duration = ?, mpa_id = ?, version = version + 1 WHERE film_id = ?";
+        List<Object> args = new ArrayList<>(Arrays.asList(film.getName(), film.getDescription(),
+                film.getReleaseDate(), film.getDuration(), film.getMpa().getId(), film.getId()));
+        if (film.getVersion() != null) {
+            sql += " AND version = ?";
+            args.add(film.getVersion());
+        }
+        if (jdbcTemplate.update(sql, args.toArray()) == 0) {
+            throw staleVersion(film.getId(), film.getVersion());
         }
+        film.setVersion(film.getVersion() != null ? film.getVersion() + 1 : jdbcTemplate.queryForObject(
+                "SELECT version FROM film WHERE film_id = ?", Long.class, film.getId()));
+        syncGenres(film.getId(), film.getGenres());
         log.info("Фильм с ID {} обновлен", film.getId());
         return film;
     }
 
     @Override
     public String remove(Integer id) {
-        validateFilmExists(id);
+        validateFilmsExist(List.of(id));
         jdbcTemplate.update("DELETE FROM film WHERE film_id = ?", id);
         log.info("Фильм с ID {} удален", id);
         return "Фильм удален";
@@ -97,10 +160,8 @@ public class FilmDbStorage implements FilmStorage {
         if (films.isEmpty()) {
             throw new NotFoundException("Фильм с ID " + id + " не найден");
         }
-        Film film = films.get(0);
-        film.setGenres(loadGenresForFilm(id));
-        loadLikesForFilm(film);
-        return film;
+        hydrate(films);
+        return films.get(0);
     }
 
     @Override
@@ -108,94 +169,356 @@ public class FilmDbStorage implements FilmStorage {
         String sql = "SELECT f.*, m.name as mpa_name FROM film f " +
                 "JOIN mpa m ON f.mpa_id = m.mpa_id";
         List<Film> films = jdbcTemplate.query(sql, filmRowMapper);
-        films.forEach(film -> {
-            film.setGenres(loadGenresForFilm(film.getId()));
-            loadLikesForFilm(film);
-        });
+        hydrate(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(Integer afterId, int limit) {
+        String sql = "SELECT f.*, m.name as mpa_name FROM film f " +
+                "JOIN mpa m ON f.mpa_id = m.mpa_id " +
+                "WHERE f.film_id > ? " +
+                "ORDER BY f.film_id " +
+                "LIMIT ?";
+        List<Film> films = jdbcTemplate.query(sql, filmRowMapper, afterId != null ? afterId : 0, limit);
+        hydrate(films);
         return films;
     }
 
+    // Отдаёт каталог потребителю постранично по film_id, не держа в памяти больше одной страницы.
+    // Страница читается отдельным запросом и гидрируется уже после него, поэтому выгрузка в каждый момент
+    // занимает не больше одного соединения
+    public void exportAll(Consumer<Film> consumer) {
+        Integer after = null;
+        List<Film> page;
+        do {
+            page = findPage(after, EXPORT_PAGE_SIZE);
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
     @Override
     public Film validateFilmExists(Integer id) {
-        String sql = "SELECT COUNT(*) FROM film WHERE film_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-        if (count == null || count == 0) {
-            throw new NotFoundException("Фильм с ID " + id + " не найден");
-        }
         return filmById(id);
     }
 
-    public void addLike(Integer filmId, Integer userId) {
+    @Override
+    public boolean existsById(Integer id) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM film WHERE film_id = ?", Integer.class, id).isEmpty();
+    }
+
+    @Override
+    public void validateFilmsExist(Collection<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT film_id FROM film WHERE film_id IN (" + placeholders(uniqueIds.size()) + ")";
+        uniqueIds.removeAll(jdbcTemplate.queryForList(sql, Integer.class, uniqueIds.toArray()));
+        if (!uniqueIds.isEmpty()) {
+            throw new NotFoundException("Фильм с ID " + uniqueIds.iterator().next() + " не найден");
+        }
+    }
+
+    @Transactional
+    public boolean addLike(Integer filmId, Integer userId) {
         String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
         try {
             jdbcTemplate.update(sql, filmId, userId);
-            log.info("Лайк добавлен: фильм {} от пользователя {}", filmId, userId);
         } catch (DuplicateKeyException e) {
             log.debug("Лайк уже существует: фильм {} от пользователя {}", filmId, userId);
+            return false;
         }
+        if (!approximatePopularity) {
+            jdbcTemplate.update("UPDATE film SET like_count = like_count + 1 WHERE film_id = ?", filmId);
+        }
+        log.info("Лайк добавлен: фильм {} от пользователя {}", filmId, userId);
+        return true;
     }
 
-    public void removeLike(Integer filmId, Integer userId) {
+    // Удаляет лайк и возвращает момент его постановки; пусто, если лайка не было
+    @Transactional
+    public OptionalLong removeLike(Integer filmId, Integer userId) {
+        List<Timestamp> likedAt = jdbcTemplate.queryForList(
+                "SELECT created_at FROM film_likes WHERE film_id = ? AND user_id = ?", Timestamp.class, filmId, userId);
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        if (likedAt.isEmpty() || jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return OptionalLong.empty();
+        }
+        if (!approximatePopularity) {
+            jdbcTemplate.update("UPDATE film SET like_count = like_count - 1 WHERE film_id = ?", filmId);
+        }
         log.info("Лайк удален: фильм {} от пользователя {}", filmId, userId);
+        return OptionalLong.of(likedAt.get(0).getTime());
     }
 
-    public List<Film> getTopFilms(int count) {
-        String sql = "SELECT f.*, m.name as mpa_name, COUNT(fl.user_id) as like_count FROM film f " +
+    public List<Film> findByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT f.*, m.name as mpa_name FROM film f " +
                 "JOIN mpa m ON f.mpa_id = m.mpa_id " +
-                "LEFT JOIN film_likes fl ON f.film_id = fl.film_id " +
-                "GROUP BY f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.name " +
-                "ORDER BY like_count DESC " +
-                "LIMIT ?";
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Film film = filmRowMapper.mapRow(rs, rowNum);
-            Mpa mpa = new Mpa();
-            mpa.setId(rs.getInt("mpa_id"));
-            mpa.setName(rs.getString("mpa_name"));
-            film.setMpa(mpa);
-            return film;
-        }, count);
-
-        films.forEach(film -> {
-            film.setGenres(loadGenresForFilm(film.getId()));
-            loadLikesForFilm(film);
+                "WHERE f.film_id IN (" + placeholders(ids.size()) + ")";
+        List<Film> films = jdbcTemplate.query(sql, filmRowMapper, ids.toArray());
+        hydrate(films);
+        Map<Integer, Film> filmsById = new HashMap<>();
+        films.forEach(film -> filmsById.put(film.getId(), film));
+        List<Film> ordered = new ArrayList<>(films.size());
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                ordered.add(film);
+            }
+        }
+        return ordered;
+    }
+
+    // id лайкнувших пользователей отсортированным массивом int — для тех, кому нужно членство, а не число
+    public int[] findLikerIds(Integer filmId) {
+        String sql = "SELECT user_id FROM film_likes WHERE film_id = ? ORDER BY user_id";
+        return jdbcTemplate.query(sql, rs -> {
+            int[] ids = new int[16];
+            int size = 0;
+            while (rs.next()) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = rs.getInt("user_id");
+            }
+            return Arrays.copyOf(ids, size);
+        }, filmId);
+    }
+
+    // Все лайки, сгруппированные по фильму: film_id -> отсортированные id лайкнувших пользователей
+    public Map<Integer, int[]> loadLikeAdjacency() {
+        return loadAdjacency("SELECT film_id, user_id FROM film_likes ORDER BY film_id, user_id");
+    }
+
+    // Жанры всех фильмов: film_id -> отсортированные id жанров
+    public Map<Integer, int[]> loadGenreAdjacency() {
+        return loadAdjacency("SELECT film_id, genre_id FROM film_genres ORDER BY film_id, genre_id");
+    }
+
+    // Время лайков не старше since, сгруппированное по фильму: film_id -> моменты в миллисекундах.
+    // Читает только хвост истории по индексу на created_at
+    public Map<Integer, long[]> findLikeTimesSince(Instant since) {
+        String sql = "SELECT film_id, created_at FROM film_likes WHERE created_at >= ? ORDER BY film_id";
+        return jdbcTemplate.query(sql, GroupingExtractor.timestamps(), Timestamp.from(since));
+    }
+
+    public Map<Integer, Integer> findReleaseYears() {
+        Map<Integer, Integer> releaseYears = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, EXTRACT(YEAR FROM release_date) AS release_year FROM film", rs -> {
+            releaseYears.put(rs.getInt("film_id"), rs.getInt("release_year"));
         });
+        return releaseYears;
+    }
 
-        return films;
+    public Map<Integer, Integer> findLikeCounts() {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, like_count FROM film", rs -> {
+            likeCounts.put(rs.getInt("film_id"), rs.getInt("like_count"));
+        });
+        return likeCounts;
+    }
+
+    // Число лайков каждого фильма прямо по film_likes — там, где like_count может отставать
+    public Map<Integer, Integer> countLikes() {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, COUNT(*) AS likes FROM film_likes GROUP BY film_id", rs -> {
+            likeCounts.put(rs.getInt("film_id"), rs.getInt("likes"));
+        });
+        return likeCounts;
+    }
+
+    // Применяет пакет событий лайков одной транзакцией: для каждой пары (фильм, пользователь)
+    // учитывается последнее событие, затем пересчитываются счётчики затронутых фильмов (в приближённом
+    // режиме пересчёт пропускается). Перед удалением читаются моменты постановки снимаемых лайков
+    @Transactional
+    public LikeBatchResult applyLikeBatch(List<LikeEvent> events) {
+        List<LikeEvent> likes = new ArrayList<>();
+        List<LikeEvent> unlikes = new ArrayList<>();
+        Set<Integer> filmIds = new LinkedHashSet<>();
+        for (LikeEvent event : LikeEvent.lastPerPair(events)) {
+            (event.like() ? likes : unlikes).add(event);
+            filmIds.add(event.filmId());
+        }
+        if (filmIds.isEmpty()) {
+            return new LikeBatchResult(new HashMap<>(), new HashMap<>());
+        }
+        Map<Long, Long> removedLikeTimes = findLikeTimes(unlikes);
+        batchLikes("MERGE INTO film_likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)", likes);
+        batchLikes("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", unlikes);
+        Map<Integer, Integer> likeCounts = approximatePopularity
+                ? new HashMap<>()
+                : recountLikes(new ArrayList<>(filmIds));
+        log.info("Применён пакет лайков: {} событий, {} фильмов", events.size(), filmIds.size());
+        return new LikeBatchResult(likeCounts, removedLikeTimes);
+    }
+
+    private Map<Integer, Integer> recountLikes(List<Integer> filmIdList) {
+        jdbcTemplate.batchUpdate("UPDATE film SET like_count = " +
+                        "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = ?) WHERE film_id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setInt(1, filmIdList.get(i));
+                        ps.setInt(2, filmIdList.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filmIdList.size();
+                    }
+                });
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, like_count FROM film WHERE film_id IN (" +
+                placeholders(filmIdList.size()) + ")", rs -> {
+                    likeCounts.put(rs.getInt("film_id"), rs.getInt("like_count"));
+                }, filmIdList.toArray());
+        return likeCounts;
+    }
+
+    // Пересчитывает like_count по film_likes для фильмов, где счётчик разошёлся с таблицей лайков
+    public int reconcileLikeCounts() {
+        String sql = "UPDATE film f SET like_count = " +
+                "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id) " +
+                "WHERE like_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)";
+        int fixed = jdbcTemplate.update(sql);
+        log.info("Сверка счётчиков лайков: исправлено {} фильмов", fixed);
+        return fixed;
     }
 
     private void saveGenres(Integer filmId, Set<Genre> genres) {
         if (genres == null || genres.isEmpty()) {
             return;
         }
-        List<Genre> genreList = new ArrayList<>(genres);
-        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", new BatchPreparedStatementSetter() {
-        @Override
-        public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-            Genre genre = genreList.get(i);
-            preparedStatement.setInt(1, filmId);
-            preparedStatement.setInt(2, genre.getId());
+        batchGenres("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId,
+                genres.stream().map(Genre::getId).distinct().toList());
+    }
+
+    // Приводит film_genres к запрошенному набору: удаляются только лишние строки и вставляются только новые,
+    // совпадающие жанры не трогаются
+    private void syncGenres(Integer filmId, Set<Genre> genres) {
+        Set<Integer> requested = new LinkedHashSet<>();
+        if (genres != null) {
+            genres.forEach(genre -> requested.add(genre.getId()));
+        }
+        List<Integer> stored = jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ?", Integer.class, filmId);
+        List<Integer> removed = stored.stream().filter(genreId -> !requested.contains(genreId)).toList();
+        stored.forEach(requested::remove);
+        batchGenres("DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?", filmId, removed);
+        batchGenres("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, new ArrayList<>(requested));
+    }
+
+    private void batchGenres(String sql, Integer filmId, List<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, filmId);
+                ps.setInt(2, genreIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return genreIds.size();
+            }
+        });
+    }
+
+    // UPDATE не затронул ни одной строки: фильм удалён параллельно либо его версия уже ушла вперёд
+    private RuntimeException staleVersion(Integer filmId, Long expectedVersion) {
+        if (expectedVersion == null || !existsById(filmId)) {
+            return new NotFoundException("Фильм с ID " + filmId + " не найден");
         }
+        return new ConflictException("Фильм с ID " + filmId + " изменён другим запросом: версия " +
+                expectedVersion + " устарела");
+    }
 
-        @Override
-        public int getBatchSize() {
-            return genreList.size();
+    // Подгружает жанры пачками по HYDRATION_BATCH_SIZE фильмов: один запрос на пачку
+    // вместо запроса на каждый фильм. Число лайков приходит из film.like_count
+    private void hydrate(List<Film> films) {
+        for (int from = 0; from < films.size(); from += HYDRATION_BATCH_SIZE) {
+            List<Film> batch = films.subList(from, Math.min(from + HYDRATION_BATCH_SIZE, films.size()));
+            Map<Integer, Film> filmsById = new HashMap<>();
+            for (Film film : batch) {
+                film.setGenres(new LinkedHashSet<>());
+                filmsById.put(film.getId(), film);
+            }
+            loadGenresForFilms(filmsById);
         }
-    });
     }
 
-    private Set<Genre> loadGenresForFilm(Integer filmId) {
-        String sql = "SELECT g.* FROM genre g " +
-                "JOIN film_genres fg ON g.genre_id = fg.genre_id " +
-                "WHERE fg.film_id = ? " +
-                "ORDER BY g.genre_id";
-        return new LinkedHashSet<>(jdbcTemplate.query(sql, genreRowMapper, filmId));
+    private void loadGenresForFilms(Map<Integer, Film> filmsById) {
+        String sql = "SELECT fg.film_id, g.* FROM film_genres fg " +
+                "JOIN genre g ON g.genre_id = fg.genre_id " +
+                "WHERE fg.film_id IN (" + placeholders(filmsById.size()) + ") " +
+                "ORDER BY fg.film_id, g.genre_id";
+        jdbcTemplate.query(sql, rs -> {
+            filmsById.get(rs.getInt("film_id")).getGenres()
+                    .add(referenceData.canonicalGenre(rs.getInt("genre_id"), rs.getString("name")));
+        }, filmsById.keySet().toArray());
+    }
+
+    // Группирует пары (ключ, значение) из запроса, отсортированного по обоим столбцам, в массивы int
+    private Map<Integer, int[]> loadAdjacency(String sql) {
+        return jdbcTemplate.query(sql, GroupingExtractor.ints());
+    }
+
+    // Моменты постановки существующих лайков из событий: LikeEvent.pairKey -> миллисекунды
+    private Map<Long, Long> findLikeTimes(List<LikeEvent> events) {
+        Map<Long, Long> likeTimes = new HashMap<>();
+        if (events.isEmpty()) {
+            return likeTimes;
+        }
+        Set<Long> pairs = new HashSet<>();
+        Set<Integer> filmIds = new LinkedHashSet<>();
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (LikeEvent event : events) {
+            pairs.add(event.pairKey());
+            filmIds.add(event.filmId());
+            userIds.add(event.userId());
+        }
+        List<Object> params = new ArrayList<>(filmIds);
+        params.addAll(userIds);
+        String sql = "SELECT film_id, user_id, created_at FROM film_likes " +
+                "WHERE film_id IN (" + placeholders(filmIds.size()) + ") " +
+                "AND user_id IN (" + placeholders(userIds.size()) + ")";
+        jdbcTemplate.query(sql, rs -> {
+            long pair = new LikeEvent(rs.getInt("film_id"), rs.getInt("user_id"), false).pairKey();
+            if (pairs.contains(pair)) {
+                likeTimes.put(pair, rs.getTimestamp("created_at").getTime());
+            }
+        }, params.toArray());
+        return likeTimes;
+    }
+
+    private void batchLikes(String sql, List<LikeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, events.get(i).filmId());
+                ps.setInt(2, events.get(i).userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
     }
 
-    private void loadLikesForFilm(Film film) {
-        String sql = "SELECT user_id FROM film_likes WHERE film_id = ?";
-        Set<Integer> likes = new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, film.getId()));
-        film.setLikes(likes);
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
     }
 }
\ No newline at end of file
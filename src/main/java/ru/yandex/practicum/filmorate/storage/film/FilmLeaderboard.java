@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.*;
+
+// Рейтинг фильмов по лайкам в памяти: упорядоченное множество (лайки по убыванию, id по возрастанию),
+// поэтому топ-N читается за O(N) без обращения к film_likes.
+// Такие же множества ведутся отдельно для каждого жанра и года выпуска — для отфильтрованного топа.
+// В приближённом режиме популярности рейтинг ведёт ApproximateLeaderboard, а этот не загружается и не обновляется
+@Slf4j
+@Component
+public class FilmLeaderboard {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+    private static final int[] NO_GENRES = new int[0];
+
+    private final FilmDbStorage filmStorage;
+    private final boolean enabled;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(ORDER);
+    private final Map<Integer, NavigableSet<Entry>> rankingByGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingByYear = new HashMap<>();
+
+    public FilmLeaderboard(FilmDbStorage filmStorage,
+                           @Value("${filmorate.popularity.approximate.enabled:false}") boolean approximate) {
+        this.filmStorage = filmStorage;
+        this.enabled = !approximate;
+    }
+
+    @PostConstruct
+    public void reload() {
+        if (!enabled) {
+            log.info("Точный рейтинг популярности не ведётся: включён приближённый режим");
+            return;
+        }
+        Map<Integer, Integer> likeCounts = filmStorage.findLikeCounts();
+        Map<Integer, Integer> releaseYears = filmStorage.findReleaseYears();
+        Map<Integer, int[]> genres = filmStorage.loadGenreAdjacency();
+        synchronized (this) {
+            entries.clear();
+            ranking.clear();
+            rankingByGenre.clear();
+            rankingByYear.clear();
+            likeCounts.forEach((filmId, likes) -> index(new Entry(filmId, Math.max(likes, 0),
+                    releaseYears.get(filmId), genres.getOrDefault(filmId, NO_GENRES))));
+        }
+        log.info("Рейтинг популярности загружен: {} фильмов", likeCounts.size());
+    }
+
+    public synchronized void put(int filmId, int likes) {
+        if (!enabled) {
+            return;
+        }
+        Entry previous = unindex(filmId);
+        index(previous != null
+                ? new Entry(filmId, Math.max(likes, 0), previous.year(), previous.genreIds())
+                : new Entry(filmId, Math.max(likes, 0), null, NO_GENRES));
+    }
+
+    public synchronized void increment(int filmId, int delta) {
+        Entry current = entries.get(filmId);
+        put(filmId, (current != null ? current.likes() : 0) + delta);
+    }
+
+    // Обновляет жанры и год выпуска фильма, сохраняя его число лайков
+    public synchronized void describe(Film film) {
+        if (!enabled) {
+            return;
+        }
+        Entry previous = unindex(film.getId());
+        int[] genreIds = film.getGenres() != null
+                ? film.getGenres().stream().mapToInt(Genre::getId).distinct().toArray()
+                : NO_GENRES;
+        Integer year = film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null;
+        index(new Entry(film.getId(), previous != null ? previous.likes() : 0, year, genreIds));
+    }
+
+    public synchronized void remove(int filmId) {
+        unindex(filmId);
+    }
+
+    public synchronized List<Integer> top(int count) {
+        return top(count, null, null);
+    }
+
+    // Топ с необязательными фильтрами по жанру и году: обходится меньшее из подходящих множеств,
+    // второй фильтр проверяется по записи
+    public synchronized List<Integer> top(int count, Integer genreId, Integer year) {
+        NavigableSet<Entry> source = ranking;
+        if (genreId != null) {
+            source = rankingByGenre.getOrDefault(genreId, Collections.emptyNavigableSet());
+        }
+        if (year != null) {
+            NavigableSet<Entry> byYear = rankingByYear.getOrDefault(year, Collections.emptyNavigableSet());
+            if (genreId == null || byYear.size() < source.size()) {
+                source = byYear;
+            }
+        }
+        List<Integer> filmIds = new ArrayList<>(Math.max(Math.min(count, source.size()), 0));
+        Iterator<Entry> iterator = source.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if ((genreId == null || entry.hasGenre(genreId)) && (year == null || year.equals(entry.year()))) {
+                filmIds.add(entry.filmId());
+            }
+        }
+        return filmIds;
+    }
+
+    private void index(Entry entry) {
+        entries.put(entry.filmId(), entry);
+        ranking.add(entry);
+        for (int genreId : entry.genreIds()) {
+            rankingByGenre.computeIfAbsent(genreId, id -> new TreeSet<>(ORDER)).add(entry);
+        }
+        if (entry.year() != null) {
+            rankingByYear.computeIfAbsent(entry.year(), id -> new TreeSet<>(ORDER)).add(entry);
+        }
+    }
+
+    private Entry unindex(int filmId) {
+        Entry previous = entries.remove(filmId);
+        if (previous == null) {
+            return null;
+        }
+        ranking.remove(previous);
+        for (int genreId : previous.genreIds()) {
+            removeFrom(rankingByGenre, genreId, previous);
+        }
+        if (previous.year() != null) {
+            removeFrom(rankingByYear, previous.year(), previous);
+        }
+        return previous;
+    }
+
+    private static void removeFrom(Map<Integer, NavigableSet<Entry>> rankings, int key, Entry entry) {
+        NavigableSet<Entry> set = rankings.get(key);
+        if (set != null) {
+            set.remove(entry);
+            if (set.isEmpty()) {
+                rankings.remove(key);
+            }
+        }
+    }
+
+    private record Entry(int filmId, int likes, Integer year, int[] genreIds) {
+        boolean hasGenre(int genreId) {
+            for (int id : genreIds) {
+                if (id == genreId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
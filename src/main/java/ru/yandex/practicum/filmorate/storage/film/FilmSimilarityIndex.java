@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ChunkedSortedInts;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// MinHash/LSH-индекс фильмов по множествам лайкнувших: сигнатура из bands * rows минимальных хешей,
+// разбитая на полосы; фильмы с совпадающей полосой попадают в одну корзину и становятся кандидатами
+// в похожие. Вероятность совпадения хотя бы одной полосы растёт с коэффициентом Жаккара,
+// поэтому запрос просматривает только свои корзины, а не весь каталог.
+// Сигнатуры считаются вне монитора индекса, под ним меняются только корзины; изменения одного фильма
+// сериализует вызывающий (LikeIndex держит блокировку фильма)
+@Component
+public class FilmSimilarityIndex {
+    private static final long HASH_SEED = 0x5DEECE66DL;
+
+    private final int bands;
+    private final int rows;
+    private final long[] multipliers;
+    private final long[] increments;
+    private final Map<Integer, int[]> signatures = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Integer>> buckets = new HashMap<>();
+
+    public FilmSimilarityIndex(@Value("${filmorate.similarity.bands:16}") int bands,
+                               @Value("${filmorate.similarity.rows:4}") int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        int size = bands * rows;
+        SplittableRandom random = new SplittableRandom(HASH_SEED);
+        this.multipliers = new long[size];
+        this.increments = new long[size];
+        for (int i = 0; i < size; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            increments[i] = random.nextLong();
+        }
+    }
+
+    public synchronized void clear() {
+        signatures.clear();
+        buckets.clear();
+    }
+
+    // Новый лайк только уменьшает минимумы, поэтому сигнатура обновляется за O(bands * rows);
+    // если ни один минимум не изменился, корзины не трогаются
+    public void addLiker(int filmId, int userId) {
+        int[] current = signatures.get(filmId);
+        int[] updated = current != null ? current.clone() : emptySignature();
+        boolean changed = current == null;
+        for (int i = 0; i < updated.length; i++) {
+            int hash = hash(i, userId);
+            if (hash < updated[i]) {
+                updated[i] = hash;
+                changed = true;
+            }
+        }
+        if (changed) {
+            replace(filmId, current, updated);
+        }
+    }
+
+    // Снятие лайка затрагивает только те хеш-функции, минимум которых давал ушедший пользователь:
+    // обычно таких нет (вероятность около bands * rows / n), и сигнатура остаётся прежней.
+    // Иначе по оставшимся лайкнувшим пересчитываются только эти позиции
+    public void removeLiker(int filmId, int userId, ChunkedSortedInts remaining) {
+        int[] current = signatures.get(filmId);
+        if (current == null) {
+            return;
+        }
+        if (remaining.size() == 0) {
+            replace(filmId, current, null);
+            return;
+        }
+        int[] affected = new int[current.length];
+        int affectedCount = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (hash(i, userId) == current[i]) {
+                affected[affectedCount++] = i;
+            }
+        }
+        if (affectedCount == 0) {
+            return;
+        }
+        int[] updated = current.clone();
+        int[] positions = Arrays.copyOf(affected, affectedCount);
+        for (int position : positions) {
+            updated[position] = Integer.MAX_VALUE;
+        }
+        remaining.forEach(likerId -> {
+            for (int position : positions) {
+                updated[position] = Math.min(updated[position], hash(position, likerId));
+            }
+        });
+        replace(filmId, current, updated);
+    }
+
+    // Полный расчёт сигнатуры — при загрузке индекса
+    public void rebuild(int filmId, int[] likers) {
+        int[] current = signatures.get(filmId);
+        if (likers == null || likers.length == 0) {
+            replace(filmId, current, null);
+            return;
+        }
+        int[] updated = emptySignature();
+        for (int userId : likers) {
+            for (int i = 0; i < updated.length; i++) {
+                updated[i] = Math.min(updated[i], hash(i, userId));
+            }
+        }
+        replace(filmId, current, updated);
+    }
+
+    public void remove(int filmId) {
+        replace(filmId, signatures.get(filmId), null);
+    }
+
+    public synchronized Set<Integer> candidates(int filmId) {
+        int[] signature = signatures.get(filmId);
+        Set<Integer> candidates = new HashSet<>();
+        if (signature == null) {
+            return candidates;
+        }
+        for (int band = 0; band < bands; band++) {
+            candidates.addAll(buckets.getOrDefault(bucketKey(band, signature), Set.of()));
+        }
+        candidates.remove(filmId);
+        return candidates;
+    }
+
+    private synchronized void replace(int filmId, int[] current, int[] updated) {
+        for (int band = 0; band < bands; band++) {
+            Long oldKey = current != null ? bucketKey(band, current) : null;
+            Long newKey = updated != null ? bucketKey(band, updated) : null;
+            if (Objects.equals(oldKey, newKey)) {
+                continue;
+            }
+            if (oldKey != null) {
+                Set<Integer> bucket = buckets.get(oldKey);
+                bucket.remove(filmId);
+                if (bucket.isEmpty()) {
+                    buckets.remove(oldKey);
+                }
+            }
+            if (newKey != null) {
+                buckets.computeIfAbsent(newKey, key -> new HashSet<>()).add(filmId);
+            }
+        }
+        if (updated != null) {
+            signatures.put(filmId, updated);
+        } else {
+            signatures.remove(filmId);
+        }
+    }
+
+    private long bucketKey(int band, int[] signature) {
+        int hash = 1;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            hash = 31 * hash + signature[i];
+        }
+        return ((long) band << 32) | (hash & 0xffffffffL);
+    }
+
+    private int hash(int function, int userId) {
+        return (int) ((multipliers[function] * userId + increments[function]) >>> 32);
+    }
+
+    private int[] emptySignature() {
+        int[] signature = new int[bands * rows];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+}
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.film;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface FilmStorage {
 
@@ -16,6 +17,12 @@ public interface FilmStorage {
 
     Collection<Film> findAll();
 
+    List<Film> findPage(Integer afterId, int limit);
+
     Film validateFilmExists(Integer id);
 
+    boolean existsById(Integer id);
+
+    void validateFilmsExist(Collection<Integer> ids);
+
 }
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+// Итог пакета лайков: новые счётчики затронутых фильмов и моменты постановки снятых лайков
+// (ключ — LikeEvent.pairKey), чтобы окно трендов вычло лайк из той корзины, куда он попал
+public record LikeBatchResult(Map<Integer, Integer> likeCounts, Map<Long, Long> removedLikeTimes) {
+
+    public OptionalLong removedLikeTime(LikeEvent event) {
+        Long likedAt = removedLikeTimes.get(event.pairKey());
+        return likedAt != null ? OptionalLong.of(likedAt) : OptionalLong.empty();
+    }
+}
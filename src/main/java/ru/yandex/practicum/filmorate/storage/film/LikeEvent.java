@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public record LikeEvent(int filmId, int userId, boolean like) {
+
+    // Пара (фильм, пользователь), упакованная в long
+    public long pairKey() {
+        return ((long) filmId << 32) | (userId & 0xffffffffL);
+    }
+
+    // Оставляет по каждой паре только последнее событие пакета — итоговое состояние пары
+    public static List<LikeEvent> lastPerPair(List<LikeEvent> events) {
+        Map<Long, LikeEvent> lastEvents = new LinkedHashMap<>();
+        for (LikeEvent event : events) {
+            lastEvents.put(event.pairKey(), event);
+        }
+        return new ArrayList<>(lastEvents.values());
+    }
+}
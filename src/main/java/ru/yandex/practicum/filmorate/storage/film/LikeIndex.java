@@ -0,0 +1,241 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ChunkedSortedInts;
+import ru.yandex.practicum.filmorate.storage.IntIntMap;
+import ru.yandex.practicum.filmorate.storage.SortedInts;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Инвертированный индекс лайков в памяти: фильм -> отсортированное множество id лайкнувших пользователей
+// (ChunkedSortedInts: лайк популярного фильма копирует один блок, а не всех лайкнувших)
+// и пользователь -> отсортированный массив id понравившихся фильмов; память растёт с числом лайков,
+// а не с величиной id. Структуры не изменяются на месте (копирование при записи), поэтому рекомендации
+// и похожие фильмы читают опубликованные значения без блокировок. Изменения одного фильма идут
+// под его полосой из STRIPES блокировок, так что лайки фильмов из разных полос не ждут друг друга;
+// список фильмов пользователя обновляется атомарно через compute.
+// Загружается из film_likes при старте и дальше обновляется по каждому лайку,
+// вместе с ним обновляется MinHash-индекс похожих фильмов
+@Slf4j
+@Component
+public class LikeIndex {
+    private static final int[] EMPTY = SortedInts.EMPTY;
+    private static final int STRIPES = 64;
+
+    private final FilmDbStorage filmStorage;
+    private final FilmSimilarityIndex similarityIndex;
+    private final Map<Integer, ChunkedSortedInts> likersByFilm = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> filmsByUser = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    @Value("${filmorate.recommendations.max-neighbours:20}")
+    private int maxNeighbours = 20;
+
+    public LikeIndex(FilmDbStorage filmStorage, FilmSimilarityIndex similarityIndex) {
+        this.filmStorage = filmStorage;
+        this.similarityIndex = similarityIndex;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void reload() {
+        Map<Integer, int[]> adjacency = filmStorage.loadLikeAdjacency();
+        Map<Integer, int[]> inverted = SortedInts.invert(adjacency);
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            likersByFilm.clear();
+            adjacency.forEach((filmId, likers) -> likersByFilm.put(filmId, ChunkedSortedInts.of(likers)));
+            filmsByUser.clear();
+            filmsByUser.putAll(inverted);
+            similarityIndex.clear();
+            adjacency.forEach(similarityIndex::rebuild);
+        } finally {
+            for (ReentrantLock stripe : stripes) {
+                stripe.unlock();
+            }
+        }
+        log.info("Индекс лайков загружен: {} фильмов, {} пользователей", likersByFilm.size(), filmsByUser.size());
+    }
+
+    // true, если лайка в индексе ещё не было
+    public boolean like(int filmId, int userId) {
+        ReentrantLock stripe = stripeFor(filmId);
+        stripe.lock();
+        try {
+            ChunkedSortedInts likers = likersByFilm.getOrDefault(filmId, ChunkedSortedInts.EMPTY);
+            if (likers.contains(userId)) {
+                return false;
+            }
+            likersByFilm.put(filmId, likers.insert(userId));
+            filmsByUser.compute(userId, (id, films) -> SortedInts.insert(films != null ? films : EMPTY, filmId));
+            similarityIndex.addLiker(filmId, userId);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // true, если лайк был в индексе
+    public boolean unlike(int filmId, int userId) {
+        ReentrantLock stripe = stripeFor(filmId);
+        stripe.lock();
+        try {
+            ChunkedSortedInts likers = likersByFilm.getOrDefault(filmId, ChunkedSortedInts.EMPTY);
+            if (!likers.contains(userId)) {
+                return false;
+            }
+            removeLiker(filmId, likers, userId);
+            deleteFilm(userId, filmId);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Точное число лайков фильма без блокировки: по нему строится likeCount в ответах GET /films/{id}
+    public int likeCount(int filmId) {
+        return likersByFilm.getOrDefault(filmId, ChunkedSortedInts.EMPTY).size();
+    }
+
+    public void removeFilm(int filmId) {
+        ReentrantLock stripe = stripeFor(filmId);
+        stripe.lock();
+        try {
+            ChunkedSortedInts likers = likersByFilm.remove(filmId);
+            if (likers != null) {
+                likers.forEach(userId -> deleteFilm(userId, filmId));
+            }
+            similarityIndex.remove(filmId);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    public void removeUser(int userId) {
+        int[] films = filmsByUser.remove(userId);
+        if (films == null) {
+            return;
+        }
+        for (int filmId : films) {
+            ReentrantLock stripe = stripeFor(filmId);
+            stripe.lock();
+            try {
+                ChunkedSortedInts likers = likersByFilm.get(filmId);
+                if (likers != null && likers.contains(userId)) {
+                    removeLiker(filmId, likers, userId);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    // Кандидаты из корзин LSH с точным коэффициентом Жаккара по массивам лайкнувших,
+    // по убыванию сходства, при равенстве — по id
+    public List<SimilarFilm> similar(int filmId) {
+        ChunkedSortedInts likers = likersByFilm.get(filmId);
+        List<SimilarFilm> similar = new ArrayList<>();
+        if (likers == null) {
+            return similar;
+        }
+        for (int candidateId : similarityIndex.candidates(filmId)) {
+            ChunkedSortedInts candidateLikers = likersByFilm.getOrDefault(candidateId, ChunkedSortedInts.EMPTY);
+            int intersection = ChunkedSortedInts.intersectionSize(likers, candidateLikers);
+            if (intersection > 0) {
+                int union = likers.size() + candidateLikers.size() - intersection;
+                similar.add(new SimilarFilm(candidateId, (double) intersection / union));
+            }
+        }
+        similar.sort(Comparator.comparingDouble(SimilarFilm::jaccard).reversed()
+                .thenComparingInt(SimilarFilm::filmId));
+        return similar;
+    }
+
+    // Рекомендации для userId: соседи — до maxNeighbours пользователей с наибольшим пересечением лайков,
+    // каждый непросмотренный фильм соседа получает вес, равный этому пересечению.
+    // Фильмы упорядочены по сумме весов, при равенстве — по id
+    public List<Integer> recommend(int userId, int limit) {
+        int[] liked = filmsByUser.get(userId);
+        if (liked == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        IntIntMap overlaps = new IntIntMap(64);
+        for (int filmId : liked) {
+            likersByFilm.getOrDefault(filmId, ChunkedSortedInts.EMPTY).forEach(otherId -> {
+                if (otherId != userId) {
+                    overlaps.increment(otherId, 1);
+                }
+            });
+        }
+
+        IntIntMap scores = new IntIntMap(64);
+        for (long neighbour : best(overlaps, maxNeighbours)) {
+            int neighbourId = Integer.MAX_VALUE - (int) (neighbour & 0xffffffffL);
+            int weight = (int) (neighbour >>> 32);
+            for (int filmId : filmsByUser.getOrDefault(neighbourId, EMPTY)) {
+                if (!SortedInts.contains(liked, filmId)) {
+                    scores.increment(filmId, weight);
+                }
+            }
+        }
+
+        long[] ranked = best(scores, limit);
+        List<Integer> filmIds = new ArrayList<>(ranked.length);
+        for (long rank : ranked) {
+            filmIds.add(Integer.MAX_VALUE - (int) (rank & 0xffffffffL));
+        }
+        return filmIds;
+    }
+
+    // limit лучших пар (id, значение) по убыванию значения, при равенстве — по возрастанию id;
+    // куча не больше числа пар, так что большой limit не раздувает выделение
+    private static long[] best(IntIntMap values, int limit) {
+        PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, values.size()) + 1);
+        values.forEach((id, value) -> {
+            long rank = ((long) value << 32) | (Integer.MAX_VALUE - id);
+            if (best.size() < limit) {
+                best.add(rank);
+            } else if (rank > best.peek()) {
+                best.poll();
+                best.add(rank);
+            }
+        });
+        long[] result = new long[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = best.poll();
+        }
+        return result;
+    }
+
+    private ReentrantLock stripeFor(int filmId) {
+        return stripes[Math.floorMod(filmId, STRIPES)];
+    }
+
+    // Вызывается под полосой фильма: убирает пользователя из лайкнувших и обновляет сигнатуру MinHash
+    private void removeLiker(int filmId, ChunkedSortedInts likers, int userId) {
+        ChunkedSortedInts remaining = likers.delete(userId);
+        if (remaining.size() > 0) {
+            likersByFilm.put(filmId, remaining);
+        } else {
+            likersByFilm.remove(filmId);
+        }
+        similarityIndex.removeLiker(filmId, userId, remaining);
+    }
+
+    // Убирает фильм из списка пользователя (пустой список — вместе с ключом)
+    private void deleteFilm(int userId, int filmId) {
+        filmsByUser.computeIfPresent(userId, (id, films) -> {
+            int[] updated = SortedInts.delete(films, filmId);
+            return updated.length > 0 ? updated : null;
+        });
+    }
+}
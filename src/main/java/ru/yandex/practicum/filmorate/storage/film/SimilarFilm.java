@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+public record SimilarFilm(int filmId, double jaccard) {
+}
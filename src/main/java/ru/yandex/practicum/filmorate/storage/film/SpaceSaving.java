@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.*;
+
+// Сводка Space-Saving: отслеживает не больше capacity фильмов. Новый фильм вытесняет отслеживаемый
+// с минимальным счётчиком, только если его оценка больше этого минимума, поэтому в сводке
+// остаются «тяжёлые» элементы потока. Оценки приходят из Count-Min sketch
+final class SpaceSaving {
+    private static final Comparator<Counter> ORDER = Comparator.comparingLong(Counter::count).reversed()
+            .thenComparingInt(Counter::filmId);
+
+    private final int capacity;
+    private final Map<Integer, Counter> counters = new HashMap<>();
+    private final NavigableSet<Counter> ordered = new TreeSet<>(ORDER);
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    void offer(int filmId, long count) {
+        Counter previous = counters.remove(filmId);
+        if (previous != null) {
+            ordered.remove(previous);
+        } else if (counters.size() >= capacity) {
+            Counter minimum = ordered.last();
+            if (count <= minimum.count()) {
+                return;
+            }
+            ordered.pollLast();
+            counters.remove(minimum.filmId());
+        }
+        Counter counter = new Counter(filmId, count);
+        counters.put(filmId, counter);
+        ordered.add(counter);
+    }
+
+    void remove(int filmId) {
+        Counter previous = counters.remove(filmId);
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+    }
+
+    List<Integer> top(int count) {
+        List<Integer> filmIds = new ArrayList<>(Math.max(Math.min(count, counters.size()), 0));
+        Iterator<Counter> iterator = ordered.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            filmIds.add(iterator.next().filmId());
+        }
+        return filmIds;
+    }
+
+    private record Counter(int filmId, long count) {
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+// Скользящее окно лайков в памяти: для каждого фильма кольцевой буфер счётчиков по интервалам
+// (по умолчанию 168 часовых корзин — неделя). Планировщик сдвигает окно, обнуляя устаревшую корзину,
+// поэтому «трендовые» фильмы считаются по корзинам без чтения истории film_likes
+@Slf4j
+@Component
+public class TrendingFilms {
+    private final FilmDbStorage filmStorage;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Map<Integer, int[]> counts = new HashMap<>();
+    private long currentBucket;
+
+    public TrendingFilms(FilmDbStorage filmStorage,
+                         @Value("${filmorate.trending.bucket-minutes:60}") long bucketMinutes,
+                         @Value("${filmorate.trending.buckets:168}") int bucketCount) {
+        this.filmStorage = filmStorage;
+        this.bucketMillis = Duration.ofMinutes(bucketMinutes).toMillis();
+        this.bucketCount = bucketCount;
+    }
+
+    @PostConstruct
+    public void reload() {
+        reload(System.currentTimeMillis());
+    }
+
+    public synchronized void reload(long nowMillis) {
+        counts.clear();
+        currentBucket = nowMillis / bucketMillis;
+        long since = (currentBucket - bucketCount + 1) * bucketMillis;
+        Map<Integer, long[]> likeTimes = filmStorage.findLikeTimesSince(Instant.ofEpochMilli(since));
+        likeTimes.forEach((filmId, times) -> {
+            int[] ring = new int[bucketCount];
+            for (long time : times) {
+                long bucket = Math.min(time / bucketMillis, currentBucket);
+                ring[slot(bucket)]++;
+            }
+            counts.put(filmId, ring);
+        });
+        log.info("Окно трендов загружено: {} фильмов с лайками за {} корзин", counts.size(), bucketCount);
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public void record(int filmId, int delta, long likedAtMillis) {
+        record(filmId, delta, likedAtMillis, System.currentTimeMillis());
+    }
+
+    // Лайк и снятие лайка учитываются в корзине момента постановки лайка, поэтому снятый лайк
+    // вычитается оттуда же, куда был добавлен. Лайк старше окна в корзинах уже не числится
+    // и пропускается, а счётчик корзины не уходит ниже нуля
+    public synchronized void record(int filmId, int delta, long likedAtMillis, long nowMillis) {
+        advance(nowMillis);
+        long bucket = Math.min(likedAtMillis / bucketMillis, currentBucket);
+        if (bucket <= currentBucket - bucketCount) {
+            return;
+        }
+        int[] ring = delta > 0 ? counts.computeIfAbsent(filmId, id -> new int[bucketCount]) : counts.get(filmId);
+        if (ring == null) {
+            return;
+        }
+        int slot = slot(bucket);
+        ring[slot] = Math.max(ring[slot] + delta, 0);
+        if (isEmpty(ring)) {
+            counts.remove(filmId);
+        }
+    }
+
+    public synchronized void remove(int filmId) {
+        counts.remove(filmId);
+    }
+
+    // Сдвигает окно до корзины, в которую попадает nowMillis, обнуляя вышедшие из окна корзины
+    public synchronized void advance(long nowMillis) {
+        long target = nowMillis / bucketMillis;
+        if (target <= currentBucket) {
+            return;
+        }
+        long steps = Math.min(target - currentBucket, bucketCount);
+        Iterator<int[]> iterator = counts.values().iterator();
+        while (iterator.hasNext()) {
+            int[] ring = iterator.next();
+            for (long bucket = target - steps + 1; bucket <= target; bucket++) {
+                ring[slot(bucket)] = 0;
+            }
+            if (isEmpty(ring)) {
+                iterator.remove();
+            }
+        }
+        currentBucket = target;
+    }
+
+    public List<Integer> top(int count, int windowBuckets) {
+        return top(count, windowBuckets, System.currentTimeMillis());
+    }
+
+    // Фильмы с наибольшим числом лайков за последние windowBuckets корзин, при равенстве — по id
+    public synchronized List<Integer> top(int count, int windowBuckets, long nowMillis) {
+        advance(nowMillis);
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        int window = Math.min(windowBuckets, bucketCount);
+        PriorityQueue<Long> best = new PriorityQueue<>(Math.min(count, counts.size()) + 1);
+        counts.forEach((filmId, ring) -> {
+            int likes = 0;
+            for (int age = 0; age < window; age++) {
+                likes += ring[slot(currentBucket - age)];
+            }
+            if (likes == 0) {
+                return;
+            }
+            long rank = ((long) likes << 32) | (Integer.MAX_VALUE - filmId);
+            if (best.size() < count) {
+                best.add(rank);
+            } else if (rank > best.peek()) {
+                best.poll();
+                best.add(rank);
+            }
+        });
+        Integer[] filmIds = new Integer[best.size()];
+        for (int i = filmIds.length - 1; i >= 0; i--) {
+            filmIds[i] = Integer.MAX_VALUE - (int) (best.poll() & 0xffffffffL);
+        }
+        return new ArrayList<>(Arrays.asList(filmIds));
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketCount);
+    }
+
+    private static boolean isEmpty(int[] ring) {
+        for (int count : ring) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+// Справочники MPA и жанров загружаются один раз при старте в массивы, индексированные по id.
+// Таблицы не меняются во время работы, поэтому чтения обслуживаются из памяти; refresh() перечитывает их
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+    private final MpaStorage mpaStorage;
+    private final GenreStorage genreStorage;
+    private final EntityVersions versions;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), new Mpa[0], List.of(), new Genre[0]);
+
+    @PostConstruct
+    public void refresh() {
+        List<Mpa> mpaList = List.copyOf(mpaStorage.findAll());
+        List<Genre> genreList = List.copyOf(genreStorage.findAll());
+        snapshot = new Snapshot(mpaList, index(mpaList, Mpa::getId, Mpa[]::new),
+                genreList, index(genreList, Genre::getId, Genre[]::new));
+        versions.bumpReference();
+        log.info("Справочники загружены: {} рейтингов MPA, {} жанров", mpaList.size(), genreList.size());
+    }
+
+    public List<Mpa> getAllMpa() {
+        return snapshot.mpaList();
+    }
+
+    public Mpa getMpa(Integer id) {
+        Mpa mpa = lookup(snapshot.mpaById(), id);
+        if (mpa == null) {
+            throw new NotFoundException("Рейтинг MPA с ID " + id + " не найден");
+        }
+        return mpa;
+    }
+
+    public boolean mpaExists(Integer id) {
+        return lookup(snapshot.mpaById(), id) != null;
+    }
+
+    // Общий экземпляр из справочника для строки фильма: маппинг не создаёт объект на каждую строку.
+    // Если строка разошлась со справочником (таблицу поменяли без refresh), возвращается новый экземпляр
+    public Mpa canonicalMpa(int id, String name) {
+        Mpa mpa = lookup(snapshot.mpaById(), id);
+        return mpa != null && Objects.equals(mpa.getName(), name) ? mpa : new Mpa(id, name);
+    }
+
+    public Genre canonicalGenre(int id, String name) {
+        Genre genre = lookup(snapshot.genreById(), id);
+        return genre != null && Objects.equals(genre.getName(), name) ? genre : new Genre(id, name);
+    }
+
+    public List<Genre> getAllGenres() {
+        return snapshot.genreList();
+    }
+
+    public Genre getGenre(Integer id) {
+        Genre genre = lookup(snapshot.genreById(), id);
+        if (genre == null) {
+            throw new NotFoundException("Жанр с ID " + id + " не найден");
+        }
+        return genre;
+    }
+
+    public boolean genreExists(Integer id) {
+        return lookup(snapshot.genreById(), id) != null;
+    }
+
+    private static <T> T lookup(T[] byId, Integer id) {
+        return id != null && id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    private static <T> T[] index(List<T> items, ToIntFunction<T> idOf, IntFunction<T[]> arrayFactory) {
+        int maxId = items.stream().mapToInt(idOf).max().orElse(0);
+        T[] byId = arrayFactory.apply(maxId + 1);
+        items.forEach(item -> byId[idOf.applyAsInt(item)] = item);
+        return byId;
+    }
+
+    private record Snapshot(List<Mpa> mpaList, Mpa[] mpaById, List<Genre> genreList, Genre[] genreById) {
+    }
+}
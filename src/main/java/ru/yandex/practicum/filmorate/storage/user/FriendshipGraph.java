@@ -0,0 +1,199 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.IntIntMap;
+import ru.yandex.practicum.filmorate.storage.SortedInts;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Граф дружбы в памяти: для каждого пользователя — отсортированные массивы id друзей (исходящие рёбра)
+// и id тех, кто добавил его в друзья (входящие рёбра).
+// Массивы не изменяются на месте (копирование при записи), поэтому чтение идёт без блокировок
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipGraph {
+    private static final int[] EMPTY = SortedInts.EMPTY;
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final UserDbStorage userStorage;
+    private final Map<Integer, int[]> friends = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> followers = new ConcurrentHashMap<>();
+
+    @Value("${filmorate.graph.max-fan-out:1000}")
+    private int maxFanOut = 1000;
+
+    @Value("${filmorate.graph.max-path-depth:6}")
+    private int maxPathDepth = 6;
+
+    @PostConstruct
+    public void reload() {
+        Map<Integer, int[]> adjacency = userStorage.loadFriendAdjacency();
+        friends.clear();
+        friends.putAll(adjacency);
+        followers.clear();
+        followers.putAll(SortedInts.invert(adjacency));
+        log.info("Граф дружбы загружен: {} пользователей с друзьями", adjacency.size());
+    }
+
+    public int[] friendsOf(int userId) {
+        return friends.getOrDefault(userId, EMPTY);
+    }
+
+    public void addEdge(int userId, int friendId) {
+        addTo(friends, userId, friendId);
+        addTo(followers, friendId, userId);
+    }
+
+    public void removeEdge(int userId, int friendId) {
+        removeFrom(friends, userId, friendId);
+        removeFrom(followers, friendId, userId);
+    }
+
+    public void removeUser(int userId) {
+        for (int follower : followers.getOrDefault(userId, EMPTY)) {
+            removeFrom(friends, follower, userId);
+        }
+        for (int friend : friends.getOrDefault(userId, EMPTY)) {
+            removeFrom(followers, friend, userId);
+        }
+        friends.remove(userId);
+        followers.remove(userId);
+    }
+
+    public int[] commonFriends(int userId, int otherId) {
+        return SortedInts.intersection(friendsOf(userId), friendsOf(otherId));
+    }
+
+    // Друзья друзей, ранжированные по числу общих друзей (при равенстве — по id).
+    // На каждом шаге просматривается не больше maxFanOut рёбер, счётчики — в IntIntMap,
+    // лучшие limit кандидатов отбираются кучей, размер которой не превышает числа кандидатов
+    public int[] suggestFriends(int userId, int limit) {
+        if (limit <= 0) {
+            return EMPTY;
+        }
+        int[] direct = friendsOf(userId);
+        IntIntMap mutualCounts = new IntIntMap(Math.min(direct.length, maxFanOut) * 8);
+        for (int i = 0; i < direct.length && i < maxFanOut; i++) {
+            int[] secondHop = friendsOf(direct[i]);
+            for (int j = 0; j < secondHop.length && j < maxFanOut; j++) {
+                int candidate = secondHop[j];
+                if (candidate != userId && !SortedInts.contains(direct, candidate)) {
+                    mutualCounts.increment(candidate, 1);
+                }
+            }
+        }
+        PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, mutualCounts.size()) + 1);
+        mutualCounts.forEach((candidate, mutual) -> {
+            long rank = rank(candidate, mutual);
+            if (best.size() < limit) {
+                best.add(rank);
+            } else if (rank > best.peek()) {
+                best.poll();
+                best.add(rank);
+            }
+        });
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = Integer.MAX_VALUE - (int) (best.poll() & 0xffffffffL);
+        }
+        return result;
+    }
+
+    // Кратчайшая цепочка дружбы from -> ... -> to по направленным рёбрам не длиннее maxPathDepth.
+    // Двунаправленный BFS: вперёд по друзьям от from, назад по входящим рёбрам от to, каждый раз
+    // расширяется меньший фронт целым уровнем. Пустой массив — пути нет
+    public int[] shortestPath(int from, int to) {
+        if (from == to) {
+            return new int[]{from};
+        }
+        IntIntMap forwardParents = new IntIntMap(64);
+        IntIntMap backwardParents = new IntIntMap(64);
+        forwardParents.put(from, from);
+        backwardParents.put(to, to);
+        int[] forwardFrontier = {from};
+        int[] backwardFrontier = {to};
+        int[] meeting = {NONE};
+        for (int depth = 0; depth < maxPathDepth && forwardFrontier.length > 0 && backwardFrontier.length > 0;
+             depth++) {
+            if (forwardFrontier.length <= backwardFrontier.length) {
+                forwardFrontier = expand(forwardFrontier, friends, forwardParents, backwardParents, meeting);
+            } else {
+                backwardFrontier = expand(backwardFrontier, followers, backwardParents, forwardParents, meeting);
+            }
+            if (meeting[0] != NONE) {
+                return buildPath(meeting[0], forwardParents, backwardParents);
+            }
+        }
+        return EMPTY;
+    }
+
+    private static int[] expand(int[] frontier, Map<Integer, int[]> edges, IntIntMap parents,
+                                IntIntMap otherParents, int[] meeting) {
+        int[] next = new int[16];
+        int size = 0;
+        for (int node : frontier) {
+            for (int neighbour : edges.getOrDefault(node, EMPTY)) {
+                if (parents.containsKey(neighbour)) {
+                    continue;
+                }
+                parents.put(neighbour, node);
+                if (otherParents.containsKey(neighbour)) {
+                    meeting[0] = neighbour;
+                    return EMPTY;
+                }
+                if (size == next.length) {
+                    next = Arrays.copyOf(next, size * 2);
+                }
+                next[size++] = neighbour;
+            }
+        }
+        return Arrays.copyOf(next, size);
+    }
+
+    private static int[] buildPath(int meeting, IntIntMap forwardParents, IntIntMap backwardParents) {
+        int forwardLength = 0;
+        for (int node = meeting; forwardParents.get(node, NONE) != node; node = forwardParents.get(node, NONE)) {
+            forwardLength++;
+        }
+        int backwardLength = 0;
+        for (int node = meeting; backwardParents.get(node, NONE) != node; node = backwardParents.get(node, NONE)) {
+            backwardLength++;
+        }
+        int[] path = new int[forwardLength + backwardLength + 1];
+        int node = meeting;
+        for (int i = forwardLength; i >= 0; i--) {
+            path[i] = node;
+            node = forwardParents.get(node, NONE);
+        }
+        node = meeting;
+        for (int i = forwardLength + 1; i < path.length; i++) {
+            node = backwardParents.get(node, NONE);
+            path[i] = node;
+        }
+        return path;
+    }
+
+    // Больше общих друзей — выше ранг; при равенстве выше меньший id
+    private static long rank(int candidate, int mutual) {
+        return ((long) mutual << 32) | (Integer.MAX_VALUE - candidate);
+    }
+
+    private static void addTo(Map<Integer, int[]> edges, int from, int to) {
+        edges.compute(from, (id, current) -> SortedInts.insert(current != null ? current : EMPTY, to));
+    }
+
+    private static void removeFrom(Map<Integer, int[]> edges, int from, int to) {
+        edges.computeIfPresent(from, (id, current) -> {
+            int[] updated = SortedInts.delete(current, to);
+            return updated.length > 0 ? updated : null;
+        });
+    }
+}
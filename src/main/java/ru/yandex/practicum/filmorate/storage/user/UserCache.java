@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+
+import java.time.Duration;
+import java.util.*;
+
+// Кэш пользователей по id перед UserDbStorage. Отсутствующий id тоже кэшируется — пустым значением
+// с коротким временем жизни, поэтому повторные запросы к несуществующим пользователям не доходят до БД.
+// Проверка существования пачки id загружает все промахи одним запросом IN.
+// Инвалидация после записи сдвигает версию пользователя для ETag
+@Component
+public class UserCache {
+    private final LoadingCache<Integer, Optional<User>> users;
+    private final EntityVersions versions;
+
+    public UserCache(UserDbStorage userStorage, EntityVersions versions,
+                     @Value("${filmorate.cache.users.maximum-size:10000}") long maximumSize,
+                     @Value("${filmorate.cache.users.expire-after-write-seconds:600}") long expireAfterWriteSeconds,
+                     @Value("${filmorate.cache.users.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this.versions = versions;
+        long presentNanos = Duration.ofSeconds(expireAfterWriteSeconds).toNanos();
+        long missingNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Integer, Optional<User>>() {
+                    @Override
+                    public long expireAfterCreate(Integer id, Optional<User> user, long currentTime) {
+                        return user.isPresent() ? presentNanos : missingNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer id, Optional<User> user, long currentTime,
+                                                  long currentDuration) {
+                        return user.isPresent() ? presentNanos : missingNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer id, Optional<User> user, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<User> load(Integer id) {
+                        return userStorage.findById(id);
+                    }
+
+                    @Override
+                    public Map<Integer, Optional<User>> loadAll(Set<? extends Integer> ids) {
+                        Map<Integer, Optional<User>> loaded = new HashMap<>();
+                        ids.forEach(id -> loaded.put(id, Optional.empty()));
+                        int[] idArray = ids.stream().mapToInt(Integer::intValue).toArray();
+                        userStorage.findByIds(idArray).forEach(user -> loaded.put(user.getId(), Optional.of(user)));
+                        return loaded;
+                    }
+                });
+    }
+
+    public User get(Integer id) {
+        return users.get(id)
+                .map(UserCache::copyOf)
+                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + id + " не найден"));
+    }
+
+    public void validateExist(Collection<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Integer, Optional<User>> found = users.getAll(uniqueIds);
+        for (Integer id : uniqueIds) {
+            if (found.get(id).isEmpty()) {
+                throw new NotFoundException("Пользователь с ID " + id + " не найден");
+            }
+        }
+    }
+
+    public void invalidate(Integer id) {
+        users.invalidate(id);
+        versions.bumpUser(id);
+    }
+
+    public CacheStats stats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = users.stats();
+        return new CacheStats(users.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.loadCount(), stats.evictionCount(), stats.averageLoadPenalty() / 1_000_000.0);
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+}
@@ -2,18 +2,21 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.mappers.GroupingExtractor;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 @Repository
@@ -22,6 +25,9 @@ public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
     private final UserRowMapper userRowMapper;
 
+    @Value("${filmorate.popularity.approximate.enabled:false}")
+    private boolean approximatePopularity;
+
     @Override
     public User create(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
@@ -41,40 +47,122 @@ public class UserDbStorage implements UserStorage {
         if (key != null) {
             user.setId(key.intValue());
         }
+        user.setVersion(0L);
         log.info("Пользователь создан с ID: {}", user.getId());
         return user;
     }
 
+    // Вставляет пачку пользователей одним многострочным INSERT, сгенерированные ключи проставляются по позиции.
+    // Это один оператор, поэтому нарушение уникальности email или логина отменяет всю пачку (DuplicateKeyException)
+    public List<User> createBatch(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        users.stream()
+                .filter(user -> user.getName() == null || user.getName().isBlank())
+                .forEach(user -> user.setName(user.getLogin()));
+        String sql = "INSERT INTO users (email, login, name, birthday) VALUES " +
+                String.join(", ", Collections.nCopies(users.size(), "(?, ?, ?, ?)"));
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"user_id"});
+            int parameter = 1;
+            for (User user : users) {
+                ps.setString(parameter++, user.getEmail());
+                ps.setString(parameter++, user.getLogin());
+                ps.setString(parameter++, user.getName());
+                ps.setDate(parameter++, java.sql.Date.valueOf(user.getBirthday()));
+            }
+            return ps;
+        }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            users.get(i).setVersion(0L);
+        }
+        log.info("Пачкой создано {} пользователей", users.size());
+        return users;
+    }
+
+    // Пользователи, у которых email или логин совпадает с одним из переданных, — один запрос на пачку
+    public List<User> findByEmailsOrLogins(Collection<String> emails, Collection<String> logins) {
+        List<String> conditions = new ArrayList<>();
+        if (!emails.isEmpty()) {
+            conditions.add("email IN (" + placeholders(emails.size()) + ")");
+        }
+        if (!logins.isEmpty()) {
+            conditions.add("login IN (" + placeholders(logins.size()) + ")");
+        }
+        if (conditions.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(emails);
+        args.addAll(logins);
+        String sql = "SELECT * FROM users WHERE " + String.join(" OR ", conditions);
+        return jdbcTemplate.query(sql, userRowMapper, args.toArray());
+    }
+
     @Override
     public User update(User user) {
-        validateUserExists(user.getId());
-        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?";
-        jdbcTemplate.update(sql,
-                user.getEmail(),
-                user.getLogin(),
-                user.getName(),
-                user.getBirthday(),
-                user.getId());
+        if (user.getId() == null) {
+            throw new NotFoundException("Пользователь с ID null не найден");
+        }
+        validateUsersExist(List.of(user.getId()));
+        // Сравнение с версией и её увеличение выполняются одним UPDATE, как в FilmDbStorage.update
+        String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ?, version = version + 1 " +
+                "WHERE user_id = ?";
+        List<Object> args = new ArrayList<>(Arrays.asList(user.getEmail(), user.getLogin(), user.getName(),
+                user.getBirthday(), user.getId()));
+        if (user.getVersion() != null) {
+            sql += " AND version = ?";
+            args.add(user.getVersion());
+        }
+        if (jdbcTemplate.update(sql, args.toArray()) == 0) {
+            throw staleVersion(user.getId(), user.getVersion());
+        }
+        user.setVersion(user.getVersion() != null ? user.getVersion() + 1 : jdbcTemplate.queryForObject(
+                "SELECT version FROM users WHERE user_id = ?", Long.class, user.getId()));
         log.info("Пользователь с ID {} обновлен", user.getId());
         return user;
     }
 
     @Override
+    @Transactional
     public String remove(Integer id) {
-        validateUserExists(id);
-        jdbcTemplate.update("DELETE FROM users WHERE user_id = ?", id);
-        log.info("Пользователь с ID {} удален", id);
+        removeWithLikes(id);
         return "Пользователь успешно удалён";
     }
 
+    // Лайки пользователя удаляются каскадом вместе с ним, поэтому like_count его фильмов уменьшается
+    // в той же транзакции (в приближённом режиме популярности столбец выравнивает сверка).
+    // Возвращает фильмы, с которых сняты лайки, с моментом постановки каждого лайка
+    // в миллисекундах — для структур в памяти
+    @Transactional
+    public Map<Integer, Long> removeWithLikes(Integer id) {
+        validateUsersExist(List.of(id));
+        Map<Integer, Long> likedAt = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT film_id, created_at FROM film_likes WHERE user_id = ?", rs -> {
+            likedAt.put(rs.getInt("film_id"), rs.getTimestamp("created_at").getTime());
+        }, id);
+        if (!likedAt.isEmpty() && !approximatePopularity) {
+            jdbcTemplate.update("UPDATE film SET like_count = like_count - 1 WHERE film_id IN (" +
+                    placeholders(likedAt.size()) + ")", likedAt.keySet().toArray());
+        }
+        jdbcTemplate.update("DELETE FROM users WHERE user_id = ?", id);
+        log.info("Пользователь с ID {} удален вместе с {} лайками", id, likedAt.size());
+        return likedAt;
+    }
+
     @Override
     public User userById(Integer id) {
+        return findById(id)
+                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + id + " не найден"));
+    }
+
+    public Optional<User> findById(Integer id) {
         String sql = "SELECT * FROM users WHERE user_id = ?";
         List<User> users = jdbcTemplate.query(sql, userRowMapper, id);
-        if (users.isEmpty()) {
-            throw new NotFoundException("Пользователь с ID " + id + " не найден");
-        }
-        return users.get(0);
+        return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
     }
 
     @Override
@@ -83,19 +171,61 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, userRowMapper);
     }
 
+    @Override
+    public List<User> findPage(Integer afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.query(sql, userRowMapper, afterId != null ? afterId : 0, limit);
+    }
+
     @Override
     public User validateUserExists(Integer id) {
-        String sql = "SELECT COUNT(*) FROM users WHERE user_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-        if (count == null || count == 0) {
-            throw new NotFoundException("Пользователь с ID " + id + " не найден");
-        }
         return userById(id);
     }
 
+    @Override
+    public boolean existsById(Integer id) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM users WHERE user_id = ?", Integer.class, id).isEmpty();
+    }
+
+    @Override
+    public void validateUsersExist(Collection<Integer> ids) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT user_id FROM users WHERE user_id IN (" + placeholders(uniqueIds.size()) + ")";
+        uniqueIds.removeAll(jdbcTemplate.queryForList(sql, Integer.class, uniqueIds.toArray()));
+        if (!uniqueIds.isEmpty()) {
+            throw new NotFoundException("Пользователь с ID " + uniqueIds.iterator().next() + " не найден");
+        }
+    }
+
+    public List<User> findByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM users WHERE user_id IN (" + placeholders(ids.length) + ")";
+        Map<Integer, User> usersById = new HashMap<>();
+        jdbcTemplate.query(sql, userRowMapper, Arrays.stream(ids).boxed().toArray())
+                .forEach(user -> usersById.put(user.getId(), user));
+        List<User> ordered = new ArrayList<>(usersById.size());
+        for (int id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                ordered.add(user);
+            }
+        }
+        return ordered;
+    }
+
+    // Все рёбра friends в виде отсортированных массивов id друзей по пользователю
+    public Map<Integer, int[]> loadFriendAdjacency() {
+        String sql = "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id";
+        return jdbcTemplate.query(sql, GroupingExtractor.ints());
+    }
+
     public void addFriend(Integer userId, Integer friendId) {
-        validateUserExists(userId);
-        validateUserExists(friendId);
+        validateUsersExist(List.of(userId, friendId));
         if (userId.equals(friendId)) {
             throw new IllegalArgumentException("Нельзя добавить себя в друзья");
         }
@@ -109,8 +239,7 @@ public class UserDbStorage implements UserStorage {
     }
 
     public void removeFriend(Integer userId, Integer friendId) {
-        validateUserExists(userId);
-        validateUserExists(friendId);
+        validateUsersExist(List.of(userId, friendId));
         String sql = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
         int deleted = jdbcTemplate.update(sql, userId, friendId);
         if (deleted > 0) {
@@ -119,20 +248,23 @@ public class UserDbStorage implements UserStorage {
     }
 
     public List<User> getFriends(Integer userId) {
-        validateUserExists(userId);
+        validateUsersExist(List.of(userId));
         String sql = "SELECT u.* FROM users u " +
                 "JOIN friends f ON u.user_id = f.friend_id " +
                 "WHERE f.user_id = ?";
         return jdbcTemplate.query(sql, userRowMapper, userId);
     }
 
-    public List<User> getCommonFriends(Integer userId, Integer otherId) {
-        validateUserExists(userId);
-        validateUserExists(otherId);
-        String sql = "SELECT u.* FROM users u " +
-                "JOIN friends f1 ON u.user_id = f1.friend_id " +
-                "JOIN friends f2 ON u.user_id = f2.friend_id " +
-                "WHERE f1.user_id = ? AND f2.user_id = ?";
-        return jdbcTemplate.query(sql, userRowMapper, userId, otherId);
+    // UPDATE не затронул ни одной строки: пользователь удалён параллельно либо его версия уже ушла вперёд
+    private RuntimeException staleVersion(Integer userId, Long expectedVersion) {
+        if (expectedVersion == null || !existsById(userId)) {
+            return new NotFoundException("Пользователь с ID " + userId + " не найден");
+        }
+        return new ConflictException("Пользователь с ID " + userId + " изменён другим запросом: версия " +
+                expectedVersion + " устарела");
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
     }
-}
\ No newline at end of file
+}
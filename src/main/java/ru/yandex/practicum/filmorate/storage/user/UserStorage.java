@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
 
@@ -16,5 +17,11 @@ public interface UserStorage {
 
     Collection<User> findAll();
 
+    List<User> findPage(Integer afterId, int limit);
+
     User validateUserExists(Integer id);
+
+    boolean existsById(Integer id);
+
+    void validateUsersExist(Collection<Integer> ids);
 }
\ No newline at end of file
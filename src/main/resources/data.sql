@@ -48,4 +48,6 @@ INSERT INTO Film_likes (film_id, user_id) VALUES
 (1, 1),
 (1, 2),
 (2, 3),
-(3, 1);
\ No newline at end of file
+(3, 1);
+
+UPDATE Film f SET like_count = (SELECT COUNT(*) FROM Film_likes fl WHERE fl.film_id = f.film_id);
\ No newline at end of file
@@ -3,7 +3,8 @@ CREATE TABLE IF NOT EXISTS users (
     email VARCHAR(255) NOT NULL UNIQUE,
     login VARCHAR(255) NOT NULL UNIQUE,
     name VARCHAR(255),
-    birthday DATE NOT NULL
+    birthday DATE NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS mpa (
@@ -23,9 +24,13 @@ CREATE TABLE IF NOT EXISTS film (
     release_date DATE NOT NULL,
     duration INT NOT NULL CHECK (duration > 0),
     mpa_id INT NOT NULL,
+    like_count INT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (mpa_id) REFERENCES mpa(mpa_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_film_like_count ON film (like_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS film_genres (
     film_id INT NOT NULL,
     genre_id INT NOT NULL,
@@ -37,11 +42,14 @@ CREATE TABLE IF NOT EXISTS film_genres (
 CREATE TABLE IF NOT EXISTS film_likes (
     film_id INT NOT NULL,
     user_id INT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (film_id, user_id),
     FOREIGN KEY (film_id) REFERENCES film(film_id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_film_likes_created_at ON film_likes (created_at);
+
 CREATE TABLE IF NOT EXISTS friends (
     user_id INT NOT NULL,
     friend_id INT NOT NULL,
@@ -1,22 +1,33 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -34,6 +45,9 @@ class FilmControllerTest {
     @MockBean
     private FilmService filmService;
 
+    @MockBean
+    private FilmImportService filmImportService;
+
     // ==================== ТЕСТЫ НА ПОЛУЧЕНИЕ ВСЕХ ФИЛЬМОВ ====================
 
     @Test
@@ -68,14 +82,65 @@ class FilmControllerTest {
         verify(filmService, times(1)).findAll();
     }
 
+    @Test
+    void findAll_WithCursor_ShouldReturnPageAndNextCursorHeader() throws Exception {
+        // given
+        Film film = new Film();
+        film.setId(11);
+        film.setName("Фильм 11");
+        film.setReleaseDate(LocalDate.of(2020, 1, 1));
+        film.setDuration(120);
+        when(filmService.findPage(10, 1)).thenReturn(new Page<>(List.of(film), 11));
+
+        // when/then
+        mockMvc.perform(get("/films")
+                        .param("after", "10")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "11"))
+                .andExpect(jsonPath("$[0].id").value(11));
+
+        verify(filmService, never()).findAll();
+    }
+
+    @Test
+    void export_ShouldStreamFilmsAsNdjson() throws Exception {
+        // given
+        Film film1 = new Film();
+        film1.setId(1);
+        film1.setName("Фильм 1");
+        Film film2 = new Film();
+        film2.setId(2);
+        film2.setName("Фильм 2");
+        doAnswer(invocation -> {
+            Consumer<Film> consumer = invocation.getArgument(0);
+            consumer.accept(film1);
+            consumer.accept(film2);
+            return null;
+        }).when(filmService).exportAll(any());
+
+        // when
+        MvcResult result = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], Film.class).getId()).isEqualTo(1);
+        assertThat(objectMapper.readValue(lines[1], Film.class).getId()).isEqualTo(2);
+    }
+
     // ==================== ТЕСТЫ НА СОЗДАНИЕ ФИЛЬМА ====================
 
     @Test
     void create_WithValidFilm_ShouldReturnCreatedFilm() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
-        mpa.setName("G");
+        Mpa mpa = new Mpa(1, "G");
 
         Film film = new Film();
         film.setName("Новый фильм");
@@ -123,8 +188,7 @@ class FilmControllerTest {
     @Test
     void create_WithBlankName_ShouldReturnBadRequest() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
 
         Film film = new Film();
         film.setName("");
@@ -145,8 +209,7 @@ class FilmControllerTest {
     @Test
     void create_WithNullReleaseDate_ShouldReturnBadRequest() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
 
         Film film = new Film();
         film.setName("Фильм");
@@ -167,8 +230,7 @@ class FilmControllerTest {
     @Test
     void create_WithNegativeDuration_ShouldReturnBadRequest() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
 
         Film film = new Film();
         film.setName("Фильм");
@@ -189,8 +251,7 @@ class FilmControllerTest {
     @Test
     void create_WithDescriptionTooLong_ShouldReturnBadRequest() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
 
         String longDescription = "a".repeat(201); // 201 символ
 
@@ -215,9 +276,7 @@ class FilmControllerTest {
     @Test
     void update_WithValidFilm_ShouldReturnUpdatedFilm() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
-        mpa.setName("G");
+        Mpa mpa = new Mpa(1, "G");
 
         Film film = new Film();
         film.setId(1);
@@ -244,8 +303,7 @@ class FilmControllerTest {
     @Test
     void update_WithNonExistingFilm_ShouldReturnNotFound() throws Exception {
         // given
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
 
         Film film = new Film();
         film.setId(999);
@@ -266,6 +324,64 @@ class FilmControllerTest {
         verify(filmService, times(1)).update(any(Film.class));
     }
 
+    @Test
+    void bulkCreate_ShouldStreamPerItemResultsAsNdjson() throws Exception {
+        // given
+        doAnswer(invocation -> {
+            Consumer<ImportResult> consumer = invocation.getArgument(1);
+            consumer.accept(ImportResult.created(0, 10));
+            consumer.accept(ImportResult.invalid(1, "Название не может быть пустым"));
+            return null;
+        }).when(filmImportService).importFilms(any(), any());
+
+        // when
+        MvcResult result = mockMvc.perform(post("/films/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"Фильм\"}\n{\"name\":\"\"}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode created = objectMapper.readTree(lines[0]);
+        assertThat(created.get("status").asText()).isEqualTo("CREATED");
+        assertThat(created.get("id").asInt()).isEqualTo(10);
+        assertThat(created.has("error")).isFalse();
+        JsonNode invalid = objectMapper.readTree(lines[1]);
+        assertThat(invalid.get("status").asText()).isEqualTo("INVALID");
+        assertThat(invalid.get("error").asText()).isEqualTo("Название не может быть пустым");
+    }
+
+    @Test
+    void update_WithStaleVersion_ShouldReturnConflict() throws Exception {
+        // given
+        Mpa mpa = new Mpa(1, null);
+
+        Film film = new Film();
+        film.setId(1);
+        film.setName("Фильм");
+        film.setReleaseDate(LocalDate.of(2023, 1, 1));
+        film.setDuration(120);
+        film.setMpa(mpa);
+        film.setVersion(3L);
+
+        when(filmService.update(any(Film.class)))
+                .thenThrow(new ConflictException("Фильм с ID 1 изменён другим запросом: версия 3 устарела"));
+
+        // when/then
+        mockMvc.perform(put("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(film)))
+                .andExpect(status().isConflict());
+
+        verify(filmService).update(argThat(sent -> Long.valueOf(3L).equals(sent.getVersion())));
+    }
+
     // ==================== ТЕСТЫ НА УДАЛЕНИЕ ФИЛЬМА ====================
 
     @Test
@@ -318,6 +434,39 @@ class FilmControllerTest {
         verify(filmService, times(1)).filmById(id);
     }
 
+    @Test
+    void getFilmById_ShouldReturnEtagAndAnswerNotModified() throws Exception {
+        // given
+        Film film = new Film();
+        film.setId(1);
+        film.setName("Фильм");
+        when(filmService.filmEtag(1)).thenReturn("\"f-1-7\"");
+        when(filmService.filmById(1)).thenReturn(film);
+
+        // when/then
+        mockMvc.perform(get("/films/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"f-1-7\""));
+        mockMvc.perform(get("/films/{id}", 1).header("If-None-Match", "\"f-1-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/films/{id}", 1).header("If-None-Match", "\"f-1-6\""))
+                .andExpect(status().isOk());
+
+        verify(filmService, times(3)).filmById(1);
+    }
+
+    @Test
+    void getFilmById_WithMatchingEtagForMissingFilm_ShouldReturnNotFound() throws Exception {
+        // given
+        when(filmService.filmEtag(999)).thenReturn("\"f-1-0-0\"");
+        when(filmService.filmById(999)).thenThrow(new NotFoundException("Фильм с ID 999 не найден"));
+
+        // when/then
+        mockMvc.perform(get("/films/{id}", 999).header("If-None-Match", "\"f-1-0-0\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getFilmById_WithInvalidId_ShouldReturnNotFound() throws Exception {
         // given
@@ -397,7 +546,7 @@ class FilmControllerTest {
     void getPopularFilms_WithDefaultCount_ShouldReturnTop10() throws Exception {
         // given
         List<Film> popularFilms = Arrays.asList(new Film(), new Film());
-        when(filmService.getTopFilms(10)).thenReturn(popularFilms);
+        when(filmService.getTopFilms(10, null, null)).thenReturn(popularFilms);
 
         // when/then
         mockMvc.perform(get("/films/popular"))
@@ -405,7 +554,22 @@ class FilmControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$").isArray());
 
-        verify(filmService, times(1)).getTopFilms(10);
+        verify(filmService, times(1)).getTopFilms(10, null, null);
+    }
+
+    @Test
+    void getSimilarFilms_ShouldReturnFilmsFromService() throws Exception {
+        // given
+        Film similar = new Film();
+        similar.setId(4);
+        when(filmService.getSimilarFilms(1, 3)).thenReturn(List.of(similar));
+
+        // when/then
+        mockMvc.perform(get("/films/1/similar").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4));
+
+        verify(filmService).getSimilarFilms(1, 3);
     }
 
     @Test
@@ -413,7 +577,7 @@ class FilmControllerTest {
         // given
         Integer count = 5;
         List<Film> popularFilms = Arrays.asList(new Film(), new Film());
-        when(filmService.getTopFilms(count)).thenReturn(popularFilms);
+        when(filmService.getTopFilms(count, null, null)).thenReturn(popularFilms);
 
         // when/then
         mockMvc.perform(get("/films/popular")
@@ -421,6 +585,57 @@ class FilmControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(filmService, times(1)).getTopFilms(count);
+        verify(filmService, times(1)).getTopFilms(count, null, null);
+    }
+
+    @Test
+    void getPopularFilms_WithGenreAndYear_ShouldPassFilters() throws Exception {
+        // given
+        when(filmService.getTopFilms(10, 1, 2000)).thenReturn(List.of(new Film()));
+
+        // when/then
+        mockMvc.perform(get("/films/popular")
+                        .param("genreId", "1")
+                        .param("year", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        verify(filmService).getTopFilms(10, 1, 2000);
+    }
+
+    @Test
+    void getPopularFilms_WithCountOutOfRange_ShouldReturnBadRequest() throws Exception {
+        // given
+        when(filmService.getTopFilms(0, null, null))
+                .thenThrow(new ValidationException("Число популярных фильмов должно быть от 1 до 1000"));
+
+        // when/then
+        mockMvc.perform(get("/films/popular").param("count", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTrendingFilms_ShouldUseDefaultWindow() throws Exception {
+        // given
+        when(filmService.getTrendingFilms(10, "24h")).thenReturn(List.of(new Film()));
+
+        // when/then
+        mockMvc.perform(get("/films/trending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        verify(filmService).getTrendingFilms(10, "24h");
+    }
+
+    @Test
+    void getCacheStats_ShouldReturnCounters() throws Exception {
+        // given
+        when(filmService.getCacheStats()).thenReturn(new CacheStats(2, 8, 2, 0.8, 2, 0, 1.5));
+
+        // when/then
+        mockMvc.perform(get("/films/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(8))
+                .andExpect(jsonPath("$.hitRate").value(0.8));
     }
-}
\ No newline at end of file
+}
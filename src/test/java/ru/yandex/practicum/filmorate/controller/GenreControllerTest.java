@@ -29,29 +29,12 @@ class GenreControllerTest {
     @Test
     void getAllGenres_ShouldReturnAllGenres() throws Exception {
         // given - создаем жанры с правильными ID и названиями
-        Genre genre1 = new Genre();
-        genre1.setId(1);
-        genre1.setName("Комедия");
-
-        Genre genre2 = new Genre();
-        genre2.setId(2);
-        genre2.setName("Драма");
-
-        Genre genre3 = new Genre();
-        genre3.setId(3);
-        genre3.setName("Мультфильм");
-
-        Genre genre4 = new Genre();
-        genre4.setId(4);
-        genre4.setName("Триллер");
-
-        Genre genre5 = new Genre();
-        genre5.setId(5);
-        genre5.setName("Документальный");
-
-        Genre genre6 = new Genre();
-        genre6.setId(6);
-        genre6.setName("Боевик");
+        Genre genre1 = new Genre(1, "Комедия");
+        Genre genre2 = new Genre(2, "Драма");
+        Genre genre3 = new Genre(3, "Мультфильм");
+        Genre genre4 = new Genre(4, "Триллер");
+        Genre genre5 = new Genre(5, "Документальный");
+        Genre genre6 = new Genre(6, "Боевик");
 
         List<Genre> genres = Arrays.asList(genre1, genre2, genre3, genre4, genre5, genre6);
 
@@ -82,9 +65,7 @@ class GenreControllerTest {
     void getGenreById_WithValidId_ShouldReturnGenre() throws Exception {
         // given
         Integer id = 1;
-        Genre genre = new Genre();
-        genre.setId(id);
-        genre.setName("Комедия");
+        Genre genre = new Genre(id, "Комедия");
 
         when(genreService.getGenreById(id)).thenReturn(genre);
 
@@ -123,4 +104,29 @@ class GenreControllerTest {
 
         verify(genreService, times(1)).getGenreById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllGenres_WithMatchingEtag_ShouldReturnNotModified() throws Exception {
+        // given
+        when(genreService.etag()).thenReturn("\"r-1-1\"");
+
+        // when/then
+        mockMvc.perform(get("/genres").header("If-None-Match", "\"r-1-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"r-1-1\""));
+
+        verify(genreService, never()).getAllGenres();
+    }
+
+    @Test
+    void getGenreById_WithMissingIdAndMatchingEtag_ShouldReturnNotFound() throws Exception {
+        // given
+        Integer id = 999;
+        when(genreService.etag()).thenReturn("\"r-1-1\"");
+        when(genreService.getGenreById(id)).thenThrow(new NotFoundException("Жанр с ID " + id + " не найден"));
+
+        // when/then
+        mockMvc.perform(get("/genres/{id}", id).header("If-None-Match", "\"r-1-1\""))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -29,25 +29,11 @@ class MpaControllerTest {
     @Test
     void getAllMpa_ShouldReturnAllMpaRatings() throws Exception {
         // given - создаем MPA рейтинги с правильными ID и названиями
-        Mpa mpa1 = new Mpa();
-        mpa1.setId(1);
-        mpa1.setName("G");
-
-        Mpa mpa2 = new Mpa();
-        mpa2.setId(2);
-        mpa2.setName("PG");
-
-        Mpa mpa3 = new Mpa();
-        mpa3.setId(3);
-        mpa3.setName("PG-13");
-
-        Mpa mpa4 = new Mpa();
-        mpa4.setId(4);
-        mpa4.setName("R");
-
-        Mpa mpa5 = new Mpa();
-        mpa5.setId(5);
-        mpa5.setName("NC-17");
+        Mpa mpa1 = new Mpa(1, "G");
+        Mpa mpa2 = new Mpa(2, "PG");
+        Mpa mpa3 = new Mpa(3, "PG-13");
+        Mpa mpa4 = new Mpa(4, "R");
+        Mpa mpa5 = new Mpa(5, "NC-17");
 
         List<Mpa> mpas = Arrays.asList(mpa1, mpa2, mpa3, mpa4, mpa5);
 
@@ -92,9 +78,7 @@ class MpaControllerTest {
     void getMpaById_WithValidId_ShouldReturnMpa() throws Exception {
         // given
         Integer id = 1;
-        Mpa mpa = new Mpa();
-        mpa.setId(id);
-        mpa.setName("G");
+        Mpa mpa = new Mpa(id, "G");
 
         when(mpaService.getMpaById(id)).thenReturn(mpa);
 
@@ -114,9 +98,7 @@ class MpaControllerTest {
         String[] expectedNames = {"G", "PG", "PG-13", "R", "NC-17"};
 
         for (int id = 1; id <= 5; id++) {
-            Mpa mpa = new Mpa();
-            mpa.setId(id);
-            mpa.setName(expectedNames[id - 1]);
+            Mpa mpa = new Mpa(id, expectedNames[id - 1]);
 
             when(mpaService.getMpaById(id)).thenReturn(mpa);
 
@@ -171,25 +153,11 @@ class MpaControllerTest {
     @Test
     void getAllMpa_ShouldReturnRatingsInCorrectOrder() throws Exception {
         // given - создаем рейтинги не по порядку, чтобы проверить сортировку
-        Mpa mpa3 = new Mpa();
-        mpa3.setId(3);
-        mpa3.setName("PG-13");
-
-        Mpa mpa1 = new Mpa();
-        mpa1.setId(1);
-        mpa1.setName("G");
-
-        Mpa mpa5 = new Mpa();
-        mpa5.setId(5);
-        mpa5.setName("NC-17");
-
-        Mpa mpa2 = new Mpa();
-        mpa2.setId(2);
-        mpa2.setName("PG");
-
-        Mpa mpa4 = new Mpa();
-        mpa4.setId(4);
-        mpa4.setName("R");
+        Mpa mpa3 = new Mpa(3, "PG-13");
+        Mpa mpa1 = new Mpa(1, "G");
+        Mpa mpa5 = new Mpa(5, "NC-17");
+        Mpa mpa2 = new Mpa(2, "PG");
+        Mpa mpa4 = new Mpa(4, "R");
 
         // Сервис возвращает их в правильном порядке (по id)
         List<Mpa> sortedMpas = Arrays.asList(mpa1, mpa2, mpa3, mpa4, mpa5);
@@ -216,9 +184,7 @@ class MpaControllerTest {
     void getMpaById_ShouldReturnMpaWithCorrectStructure() throws Exception {
         // given
         Integer id = 1;
-        Mpa mpa = new Mpa();
-        mpa.setId(id);
-        mpa.setName("G");
+        Mpa mpa = new Mpa(id, "G");
 
         when(mpaService.getMpaById(id)).thenReturn(mpa);
 
@@ -235,11 +201,11 @@ class MpaControllerTest {
     @Test
     void getAllMpa_ShouldHaveExactlyFiveRatings() throws Exception {
         // given
-        Mpa mpa1 = new Mpa(); mpa1.setId(1); mpa1.setName("G");
-        Mpa mpa2 = new Mpa(); mpa2.setId(2); mpa2.setName("PG");
-        Mpa mpa3 = new Mpa(); mpa3.setId(3); mpa3.setName("PG-13");
-        Mpa mpa4 = new Mpa(); mpa4.setId(4); mpa4.setName("R");
-        Mpa mpa5 = new Mpa(); mpa5.setId(5); mpa5.setName("NC-17");
+        Mpa mpa1 = new Mpa(1, "G");
+        Mpa mpa2 = new Mpa(2, "PG");
+        Mpa mpa3 = new Mpa(3, "PG-13");
+        Mpa mpa4 = new Mpa(4, "R");
+        Mpa mpa5 = new Mpa(5, "NC-17");
 
         List<Mpa> mpas = Arrays.asList(mpa1, mpa2, mpa3, mpa4, mpa5);
         when(mpaService.getAllMpa()).thenReturn(mpas);
@@ -257,9 +223,7 @@ class MpaControllerTest {
     void getMpaById_WithMaxId_ShouldWork() throws Exception {
         // given
         Integer id = 5;
-        Mpa mpa = new Mpa();
-        mpa.setId(id);
-        mpa.setName("NC-17");
+        Mpa mpa = new Mpa(id, "NC-17");
 
         when(mpaService.getMpaById(id)).thenReturn(mpa);
 
@@ -284,4 +248,16 @@ class MpaControllerTest {
 
         verify(mpaService, times(1)).getMpaById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMpaById_WithMissingIdAndMatchingEtag_ShouldReturnNotFound() throws Exception {
+        // given
+        Integer id = 6;
+        when(mpaService.etag()).thenReturn("\"r-1-1\"");
+        when(mpaService.getMpaById(id)).thenThrow(new NotFoundException("Рейтинг MPA с ID " + id + " не найден"));
+
+        // when/then
+        mockMvc.perform(get("/mpa/{id}", id).header("If-None-Match", "\"r-1-1\""))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,15 +8,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.UserImportService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,6 +42,46 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private RecommendationService recommendationService;
+
+    @MockBean
+    private UserImportService userImportService;
+
+    // ==================== ТЕСТЫ НА МАССОВУЮ ЗАГРУЗКУ ====================
+
+    @Test
+    void bulkCreate_ShouldStreamPerRowResultsAsNdjson() throws Exception {
+        // given
+        doAnswer(invocation -> {
+            Consumer<ImportResult> consumer = invocation.getArgument(1);
+            consumer.accept(ImportResult.created(0, 4));
+            consumer.accept(ImportResult.conflict(1, "Email user1@test.com уже занят"));
+            return null;
+        }).when(userImportService).importUsers(any(), any());
+
+        // when
+        MvcResult result = mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"email\":\"new@test.com\"},{\"email\":\"user1@test.com\"}]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode created = objectMapper.readTree(lines[0]);
+        assertThat(created.get("status").asText()).isEqualTo("CREATED");
+        assertThat(created.get("id").asInt()).isEqualTo(4);
+        JsonNode conflict = objectMapper.readTree(lines[1]);
+        assertThat(conflict.get("status").asText()).isEqualTo("CONFLICT");
+        assertThat(conflict.get("error").asText()).isEqualTo("Email user1@test.com уже занят");
+    }
+
     // ==================== ТЕСТЫ НА ПОЛУЧЕНИЕ ВСЕХ ПОЛЬЗОВАТЕЛЕЙ ====================
 
     @Test
@@ -319,6 +368,17 @@ class UserControllerTest {
         verify(userService, times(1)).userById(id);
     }
 
+    @Test
+    void getUserById_WithMatchingEtagForMissingUser_ShouldReturnNotFound() throws Exception {
+        // given
+        when(userService.userEtag(999)).thenReturn("\"u-1-0\"");
+        when(userService.userById(999)).thenThrow(new NotFoundException("Пользователь с ID 999 не найден"));
+
+        // when/then
+        mockMvc.perform(get("/users/{id}", 999).header("If-None-Match", "\"u-1-0\""))
+                .andExpect(status().isNotFound());
+    }
+
     // ==================== ТЕСТЫ НА ДРУЗЕЙ ====================
 
     @Test
@@ -388,6 +448,39 @@ class UserControllerTest {
         verify(userService, times(1)).getFriends(userId);
     }
 
+    @Test
+    void getFriendSuggestions_ShouldPassLimitToService() throws Exception {
+        // given
+        User suggested = new User();
+        suggested.setId(9);
+        suggested.setEmail("user9@test.com");
+        suggested.setLogin("user9");
+        suggested.setBirthday(LocalDate.of(1990, 1, 1));
+        when(userService.getFriendSuggestions(1, 5)).thenReturn(List.of(suggested));
+
+        // when/then
+        mockMvc.perform(get("/users/1/friends/suggestions").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(9));
+
+        verify(userService).getFriendSuggestions(1, 5);
+    }
+
+    @Test
+    void getRecommendations_ShouldReturnRecommendedFilms() throws Exception {
+        // given
+        Film recommended = new Film();
+        recommended.setId(7);
+        when(recommendationService.getRecommendations(1, 3)).thenReturn(List.of(recommended));
+
+        // when/then
+        mockMvc.perform(get("/users/1/recommendations").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7));
+
+        verify(recommendationService).getRecommendations(1, 3);
+    }
+
     @Test
     void getCommonFriends_WithValidIds_ShouldReturnCommonFriends() throws Exception {
         // given
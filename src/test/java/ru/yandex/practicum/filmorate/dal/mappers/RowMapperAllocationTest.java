@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.dal.mappers;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Чтение каталога (GET /films) не должно создавать MPA и жанры на каждую строку:
+// все фильмы ссылаются на экземпляры из ReferenceDataRegistry, что видно и по выделенной памяти на строку
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+@Import({FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+class RowMapperAllocationTest {
+
+    private static final int FILMS = 500;
+    private static final int ROWS = 20_000;
+
+    private final FilmDbStorage filmStorage;
+    private final ReferenceDataRegistry referenceData;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findAll_ShouldShareRegistryInstancesAcrossFilms() {
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 0; i < FILMS; i++) {
+            films.add(new Object[]{"Фильм " + i, Date.valueOf(LocalDate.of(2000, 1, 1)), 100, 4});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO film (name, release_date, duration, mpa_id) VALUES (?, ?, ?, ?)", films);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) " +
+                "SELECT film_id, genre_id FROM film, genre WHERE film_id > 3 AND genre_id IN (1, 6)");
+
+        Collection<Film> all = filmStorage.findAll();
+
+        Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        all.forEach(film -> {
+            distinct.add(film.getMpa());
+            distinct.addAll(film.getGenres());
+        });
+        assertThat(all).hasSize(FILMS + 3);
+        assertThat(distinct).hasSizeLessThanOrEqualTo(
+                referenceData.getAllMpa().size() + referenceData.getAllGenres().size());
+        assertThat(all).allSatisfy(film -> {
+            assertThat(film.getMpa()).isSameAs(referenceData.getMpa(film.getMpa().getId()));
+            film.getGenres().forEach(genre -> assertThat(genre).isSameAs(referenceData.getGenre(genre.getId())));
+        });
+    }
+
+    @Test
+    void canonicalInstances_ShouldAllocateLessPerRowThanFreshInstances() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long[] allocated = new long[2];
+        Object[] sink = new Object[2 * ROWS];
+
+        jdbcTemplate.query("SELECT g.genre_id, g.name, m.mpa_id, m.name AS mpa_name FROM genre g, mpa m " +
+                "WHERE g.genre_id = 1 AND m.mpa_id = 4", rs -> {
+                    // Прогрев, чтобы сравнивать уже скомпилированный код
+                    for (int i = 0; i < ROWS; i++) {
+                        sink[2 * i] = referenceData.canonicalGenre(rs.getInt("genre_id"), rs.getString("name"));
+                        sink[2 * i + 1] = referenceData.canonicalMpa(rs.getInt("mpa_id"), rs.getString("mpa_name"));
+                        sink[2 * i] = new Genre(rs.getInt("genre_id"), rs.getString("name"));
+                        sink[2 * i + 1] = new Mpa(rs.getInt("mpa_id"), rs.getString("mpa_name"));
+                    }
+
+                    long start = threads.getThreadAllocatedBytes(threadId);
+                    for (int i = 0; i < ROWS; i++) {
+                        sink[2 * i] = new Genre(rs.getInt("genre_id"), rs.getString("name"));
+                        sink[2 * i + 1] = new Mpa(rs.getInt("mpa_id"), rs.getString("mpa_name"));
+                    }
+                    allocated[0] = threads.getThreadAllocatedBytes(threadId) - start;
+
+                    start = threads.getThreadAllocatedBytes(threadId);
+                    for (int i = 0; i < ROWS; i++) {
+                        sink[2 * i] = referenceData.canonicalGenre(rs.getInt("genre_id"), rs.getString("name"));
+                        sink[2 * i + 1] = referenceData.canonicalMpa(rs.getInt("mpa_id"), rs.getString("mpa_name"));
+                    }
+                    allocated[1] = threads.getThreadAllocatedBytes(threadId) - start;
+                });
+
+        long freshBytes = allocated[0];
+        long canonicalBytes = allocated[1];
+        System.out.printf("Выделено на %d строк: новые объекты %d байт (%.1f на строку), " +
+                        "общие экземпляры %d байт (%.1f на строку)%n",
+                ROWS, freshBytes, (double) freshBytes / ROWS, canonicalBytes, (double) canonicalBytes / ROWS);
+        // Порог относительный: абсолютные байты зависят от JVM и сжатия указателей, а общие экземпляры
+        // должны как минимум вдвое сократить выделения на строку по сравнению с новыми объектами
+        assertThat(canonicalBytes).isLessThan(freshBytes / 2);
+        assertThat(sink[2 * (ROWS - 1)]).isSameAs(sink[0]).isSameAs(referenceData.getGenre(1));
+        assertThat(sink[2 * ROWS - 1]).isSameAs(sink[1]).isSameAs(referenceData.getMpa(4));
+    }
+
+    @Test
+    void canonicalMpa_WhenRowDiffersFromRegistry_ShouldNotReplaceRegistryInstance() {
+        assertThat(referenceData.canonicalMpa(1, "G")).isSameAs(referenceData.getMpa(1));
+        assertThat(referenceData.canonicalMpa(1, "Другое имя")).isNotSameAs(referenceData.getMpa(1))
+                .extracting("name").isEqualTo("Другое имя");
+        assertThat(referenceData.getMpa(1).getName()).isEqualTo("G");
+    }
+}
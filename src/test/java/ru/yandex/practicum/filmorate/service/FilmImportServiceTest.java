@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FilmImportServiceTest {
+
+    private static final String FILM = "{\"name\":\"%s\",\"releaseDate\":\"2000-01-01\",\"duration\":100," +
+            "\"mpa\":{\"id\":1}}";
+
+    @Mock
+    private FilmService filmService;
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private FilmImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new FilmImportService(new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), filmService, filmStorage, 2);
+        AtomicInteger ids = new AtomicInteger(100);
+        lenient().when(filmStorage.createBatch(any())).thenAnswer(invocation -> {
+            List<Film> films = invocation.getArgument(0);
+            batchSizes.add(films.size());
+            films.forEach(film -> film.setId(ids.incrementAndGet()));
+            return films;
+        });
+    }
+
+    @Test
+    void importFilms_WithJsonArray_ShouldInsertInChunks() throws Exception {
+        String body = "[" + String.join(",", film("А"), film("Б"), film("В")) + "]";
+
+        List<ImportResult> results = importFilms(body);
+
+        assertThat(batchSizes).containsExactly(2, 1);
+        assertThat(results).extracting(ImportResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(results).extracting(ImportResult::getId).containsExactly(101, 102, 103);
+        assertThat(results).allMatch(result -> result.getStatus() == ImportResult.Status.CREATED);
+        verify(filmService, times(3)).prepareForCreate(any());
+        verify(filmService, times(2)).registerCreated(any());
+    }
+
+    @Test
+    void importFilms_WithNdjson_ShouldReportInvalidItemsWithoutStopping() throws Exception {
+        lenient().doThrow(new ValidationException("MPA должен быть указан"))
+                .when(filmService).prepareForCreate(argThat(film -> "Без MPA".equals(film.getName())));
+        String body = String.join("\n",
+                film("Первый"),
+                "{\"name\":\"\",\"releaseDate\":\"2000-01-01\",\"duration\":100}",
+                "{\"name\":\"Кривая дата\",\"releaseDate\":\"вчера\",\"duration\":100}",
+                film("Без MPA"),
+                film("Последний")) + "\n";
+
+        List<ImportResult> results = importFilms(body);
+
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportResult.Status.CREATED,
+                ImportResult.Status.INVALID,
+                ImportResult.Status.INVALID,
+                ImportResult.Status.INVALID,
+                ImportResult.Status.CREATED);
+        assertThat(results.get(1).getError()).isEqualTo("Название не может быть пустым");
+        assertThat(results.get(2).getError()).startsWith("Некорректный фильм");
+        assertThat(results.get(3).getError()).isEqualTo("MPA должен быть указан");
+        assertThat(batchSizes).containsExactly(1, 1);
+    }
+
+    @Test
+    void importFilms_ShouldPassResultsOnBeforeNextChunkIsRead() throws Exception {
+        List<ImportResult> results = new ArrayList<>();
+        String body = String.join("\n", film("А"), film("Б"), film("В")) + "\n";
+        doAnswer(invocation -> {
+            List<Film> films = invocation.getArgument(0);
+            if (!results.isEmpty()) {
+                assertThat(results).extracting(ImportResult::getIndex).containsExactly(0, 1);
+            }
+            films.forEach(film -> film.setId(1));
+            return films;
+        }).when(filmStorage).createBatch(any());
+
+        importService.importFilms(stream(body), results::add);
+
+        assertThat(results).extracting(ImportResult::getIndex).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void importFilms_WhenChunkFails_ShouldReportItsFilmsAsFailedAndContinue() throws Exception {
+        doThrow(new DataIntegrityViolationException("constraint"))
+                .when(filmStorage).createBatch(argThat(films -> "Сбой".equals(films.get(0).getName())));
+        String body = "[" + String.join(",", film("А"), film("Б"), film("Сбой"), "{\"name\":\"\"}",
+                film("В")) + "]";
+
+        List<ImportResult> results = importFilms(body);
+
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportResult.Status.CREATED,
+                ImportResult.Status.CREATED,
+                ImportResult.Status.FAILED,
+                ImportResult.Status.INVALID,
+                ImportResult.Status.CREATED);
+        assertThat(results.get(2).getId()).isNull();
+        assertThat(results.get(2).getError()).contains("отправить повторно");
+        verify(filmService, times(2)).registerCreated(any());
+    }
+
+    @Test
+    void importFilms_WithBrokenJson_ShouldKeepParsedItemsAndStop() throws Exception {
+        String body = film("Первый") + "\n{\"name\": \"Оборван";
+
+        List<ImportResult> results = importFilms(body);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).getStatus()).isEqualTo(ImportResult.Status.CREATED);
+        assertThat(results.get(1).getIndex()).isEqualTo(1);
+        assertThat(results.get(1).getError()).startsWith("Некорректный JSON");
+    }
+
+    private List<ImportResult> importFilms(String body) throws IOException {
+        List<ImportResult> results = new ArrayList<>();
+        importService.importFilms(stream(body), results::add);
+        return results;
+    }
+
+    private static String film(String name) {
+        return String.format(FILM, name);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
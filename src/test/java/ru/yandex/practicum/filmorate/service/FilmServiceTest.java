@@ -1,20 +1,39 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.film.ApproximateLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.LikeEvent;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.SimilarFilm;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class FilmServiceTest {
@@ -23,7 +42,31 @@ class FilmServiceTest {
     private FilmDbStorage filmStorage;
 
     @Mock
-    private UserDbStorage userStorage;
+    private UserCache userCache;
+
+    @Mock
+    private ReferenceDataRegistry referenceData;
+
+    @Mock
+    private FilmLeaderboard leaderboard;
+
+    @Mock
+    private LikeWriteBehindBuffer likeBuffer;
+
+    @Mock
+    private LikeIndex likeIndex;
+
+    @Mock
+    private TrendingFilms trendingFilms;
+
+    @Mock
+    private ApproximateLeaderboard approximateLeaderboard;
+
+    @Mock
+    private FilmCache filmCache;
+
+    @Mock
+    private EntityVersions versions;
 
     @InjectMocks
     private FilmService filmService;
@@ -33,11 +76,37 @@ class FilmServiceTest {
         Integer filmId = 1;
         Integer userId = 1;
 
+        when(filmStorage.addLike(filmId, userId)).thenReturn(true);
+
         filmService.addLike(filmId, userId);
 
-        verify(filmStorage).validateFilmExists(filmId);
-        verify(userStorage).validateUserExists(userId);
+        verify(filmStorage).validateFilmsExist(List.of(filmId));
+        verify(userCache).validateExist(List.of(userId));
         verify(filmStorage).addLike(filmId, userId);
+        verify(leaderboard).increment(filmId, 1);
+        verify(likeIndex).like(filmId, userId);
+        verify(trendingFilms).record(eq(filmId), eq(1), anyLong());
+        verify(approximateLeaderboard).record(filmId, 1);
+        verifyNoInteractions(filmCache, versions);
+    }
+
+    @Test
+    void addLike_Duplicate_ShouldNotTouchLeaderboard() {
+        when(filmStorage.addLike(1, 1)).thenReturn(false);
+
+        filmService.addLike(1, 1);
+
+        verifyNoInteractions(leaderboard);
+    }
+
+    @Test
+    void addLike_WithWriteBehind_ShouldEnqueueEvent() {
+        when(likeBuffer.isEnabled()).thenReturn(true);
+
+        filmService.addLike(1, 2);
+
+        verify(likeBuffer).submit(new LikeEvent(1, 2, true));
+        verify(filmStorage, never()).addLike(anyInt(), anyInt());
     }
 
     @Test
@@ -45,23 +114,163 @@ class FilmServiceTest {
         Integer filmId = 1;
         Integer userId = 1;
 
+        long likedAt = 1_700_000_000_000L;
+        when(filmStorage.removeLike(filmId, userId)).thenReturn(OptionalLong.of(likedAt));
+
         filmService.removeLike(filmId, userId);
 
-        verify(filmStorage).validateFilmExists(filmId);
-        verify(userStorage).validateUserExists(userId);
+        verify(filmStorage).validateFilmsExist(List.of(filmId));
+        verify(userCache).validateExist(List.of(userId));
         verify(filmStorage).removeLike(filmId, userId);
+        verify(leaderboard).increment(filmId, -1);
+        verify(likeIndex).unlike(filmId, userId);
+        verify(trendingFilms).record(filmId, -1, likedAt);
+        verifyNoInteractions(filmCache, versions);
+    }
+
+    @Test
+    void removeLike_Missing_ShouldNotTouchTrending() {
+        when(filmStorage.removeLike(1, 1)).thenReturn(OptionalLong.empty());
+
+        filmService.removeLike(1, 1);
+
+        verifyNoInteractions(leaderboard, trendingFilms);
     }
 
     @Test
-    void getTopFilms_ShouldCallStorage() {
+    void getSimilarFilms_WithEqualJaccard_ShouldPreferSharedGenres() {
+        Genre comedy = new Genre(1, "Комедия");
+        Genre drama = new Genre(2, "Драма");
+        Film film = new Film();
+        film.setId(1);
+        film.setGenres(Set.of(comedy, drama));
+        Film oneGenre = new Film();
+        oneGenre.setId(2);
+        oneGenre.setGenres(Set.of(drama));
+        Film twoGenres = new Film();
+        twoGenres.setId(3);
+        twoGenres.setGenres(Set.of(comedy, drama));
+        when(filmCache.get(1)).thenReturn(film);
+        when(likeIndex.similar(1)).thenReturn(List.of(new SimilarFilm(2, 0.5), new SimilarFilm(3, 0.5),
+                new SimilarFilm(4, 0.25)));
+        when(filmStorage.findByIds(List.of(2, 3))).thenReturn(new ArrayList<>(List.of(oneGenre, twoGenres)));
+
+        List<Film> result = filmService.getSimilarFilms(1, 1);
+
+        assertThat(result).containsExactly(twoGenres);
+    }
+
+    @Test
+    void getSimilarFilms_WithLimitOutOfRange_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> filmService.getSimilarFilms(1, 0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmService.getSimilarFilms(1, 101))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(filmCache, likeIndex);
+    }
+
+    @Test
+    void getTopFilms_ShouldLoadFilmsRankedByLeaderboard() {
         Integer count = 10;
         List<Film> expectedFilms = List.of(new Film(), new Film());
-        when(filmStorage.getTopFilms(count)).thenReturn(expectedFilms);
+        when(leaderboard.top(count, null, null)).thenReturn(List.of(3, 1));
+        when(filmStorage.findByIds(List.of(3, 1))).thenReturn(expectedFilms);
 
         List<Film> result = filmService.getTopFilms(count);
 
         assertThat(result).isEqualTo(expectedFilms);
-        verify(filmStorage).getTopFilms(count);
+    }
+
+    @Test
+    void getTopFilms_InApproximateMode_ShouldUseHeavyHitters() {
+        when(approximateLeaderboard.isEnabled()).thenReturn(true);
+        when(approximateLeaderboard.top(3)).thenReturn(List.of(7, 2));
+        when(filmStorage.findByIds(List.of(7, 2))).thenReturn(List.of(new Film(), new Film()));
+
+        List<Film> result = filmService.getTopFilms(3);
+
+        assertThat(result).hasSize(2);
+        verifyNoInteractions(leaderboard);
+    }
+
+    @Test
+    void getTopFilms_InApproximateModeWithFilters_ShouldFilterHeavyHitters() {
+        Film comedy = filmWith(7, new Genre(1, "Комедия"), 1999);
+        Film drama = filmWith(2, new Genre(2, "Драма"), 1999);
+        Film olderDrama = filmWith(5, new Genre(2, "Драма"), 1985);
+        Film anotherDrama = filmWith(9, new Genre(2, "Драма"), 1999);
+        when(referenceData.genreExists(2)).thenReturn(true);
+        when(approximateLeaderboard.isEnabled()).thenReturn(true);
+        when(approximateLeaderboard.top(Integer.MAX_VALUE)).thenReturn(List.of(7, 2, 5, 9));
+        when(filmStorage.findByIds(List.of(7, 2, 5, 9))).thenReturn(List.of(comedy, drama, olderDrama, anotherDrama));
+
+        List<Film> result = filmService.getTopFilms(1, 2, 1999);
+
+        assertThat(result).extracting(Film::getId).containsExactly(2);
+        verifyNoInteractions(leaderboard);
+    }
+
+    @Test
+    void getTopFilms_WithFilters_ShouldUseFilteredRanking() {
+        when(referenceData.genreExists(2)).thenReturn(true);
+        when(leaderboard.top(5, 2, 1999)).thenReturn(List.of(4));
+        when(filmStorage.findByIds(List.of(4))).thenReturn(List.of(new Film()));
+
+        List<Film> result = filmService.getTopFilms(5, 2, 1999);
+
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    void getTopFilms_WithCountOutOfRange_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> filmService.getTopFilms(0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmService.getTopFilms(-5, 1, null))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmService.getTopFilms(Integer.MAX_VALUE))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(leaderboard, approximateLeaderboard, filmStorage);
+    }
+
+    @Test
+    void getTopFilms_WithUnknownGenre_ShouldThrowNotFoundException() {
+        when(referenceData.genreExists(99)).thenReturn(false);
+
+        assertThatThrownBy(() -> filmService.getTopFilms(5, 99, null))
+                .isInstanceOf(NotFoundException.class);
+        verifyNoInteractions(leaderboard);
+    }
+
+    @Test
+    void getTrendingFilms_ShouldConvertWindowToBuckets() {
+        when(trendingFilms.getBucketMillis()).thenReturn(3_600_000L);
+        when(trendingFilms.getBucketCount()).thenReturn(168);
+        when(trendingFilms.top(5, 24)).thenReturn(List.of(2));
+        when(filmStorage.findByIds(List.of(2))).thenReturn(List.of(new Film()));
+
+        List<Film> result = filmService.getTrendingFilms(5, "1d");
+
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    void getTrendingFilms_WithInvalidWindow_ShouldThrowValidationException() {
+        when(trendingFilms.getBucketMillis()).thenReturn(3_600_000L);
+        when(trendingFilms.getBucketCount()).thenReturn(168);
+
+        assertThatThrownBy(() -> filmService.getTrendingFilms(5, "yesterday"))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmService.getTrendingFilms(5, "30d"))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void getTrendingFilms_WithCountOutOfRange_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> filmService.getTrendingFilms(0, "24h"))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmService.getTrendingFilms(Integer.MAX_VALUE, "24h"))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(trendingFilms);
     }
 
     @Test
@@ -75,15 +284,34 @@ class FilmServiceTest {
         verify(filmStorage).findAll();
     }
 
+    @Test
+    void create_WithUnknownGenre_ShouldThrowWithoutTouchingStorage() {
+        Mpa mpa = new Mpa(1, null);
+        Film film = new Film();
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setMpa(mpa);
+        film.setGenres(Set.of(new Genre(42, null)));
+        when(referenceData.getMpa(1)).thenReturn(mpa);
+        when(referenceData.genreExists(42)).thenReturn(false);
+
+        assertThatThrownBy(() -> filmService.create(film))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Жанр с id 42 не найден");
+        verify(filmStorage, never()).create(any());
+    }
+
     @Test
     void update_ShouldCallStorage() {
         Film film = new Film();
+        film.setId(1);
         when(filmStorage.update(film)).thenReturn(film);
 
         Film result = filmService.update(film);
 
         assertThat(result).isEqualTo(film);
         verify(filmStorage).update(film);
+        verify(leaderboard).describe(film);
+        verify(filmCache).invalidate(film.getId());
     }
 
     @Test
@@ -96,17 +324,39 @@ class FilmServiceTest {
 
         assertThat(result).isEqualTo(expected);
         verify(filmStorage).remove(id);
+        verify(leaderboard).remove(id);
+        verify(likeIndex).removeFilm(id);
+        verify(filmCache).invalidate(id);
     }
 
     @Test
-    void filmById_ShouldCallStorage() {
+    void filmById_ShouldReadThroughCacheAndTakeLikesFromIndex() {
         Integer id = 1;
         Film expectedFilm = new Film();
-        when(filmStorage.filmById(id)).thenReturn(expectedFilm);
+        expectedFilm.setLikeCount(2);
+        when(filmCache.get(id)).thenReturn(expectedFilm);
+        when(likeIndex.likeCount(id)).thenReturn(5);
 
         Film result = filmService.filmById(id);
 
         assertThat(result).isEqualTo(expectedFilm);
-        verify(filmStorage).filmById(id);
+        assertThat(result.getLikeCount()).isEqualTo(5);
+        verify(filmStorage, never()).filmById(id);
+    }
+
+    @Test
+    void filmEtag_ShouldIncludeCurrentLikeCount() {
+        when(likeIndex.likeCount(1)).thenReturn(5);
+        when(versions.filmEtag(1, 5)).thenReturn("\"f-1-3-5\"");
+
+        assertThat(filmService.filmEtag(1)).isEqualTo("\"f-1-3-5\"");
+    }
+
+    private static Film filmWith(int id, Genre genre, int year) {
+        Film film = new Film();
+        film.setId(id);
+        film.setGenres(Set.of(genre));
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        return film;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.storage.film.ApproximateLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.LikeBatchResult;
+import ru.yandex.practicum.filmorate.storage.film.LikeEvent;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeWriteBehindBufferTest {
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    @Mock
+    private FilmLeaderboard leaderboard;
+
+    @Mock
+    private LikeIndex likeIndex;
+
+    @Mock
+    private TrendingFilms trendingFilms;
+
+    @Mock
+    private ApproximateLeaderboard approximateLeaderboard;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteQueuedEventsAsOneBatch() {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 10, 100, 1000, 0);
+        long likedAt = 1_700_000_000_000L;
+        when(filmStorage.applyLikeBatch(anyList())).thenReturn(new LikeBatchResult(Map.of(1, 2),
+                Map.of(new LikeEvent(1, 3, false).pairKey(), likedAt)));
+        when(likeIndex.like(1, 1)).thenReturn(true);
+        when(likeIndex.like(1, 2)).thenReturn(false);
+        when(likeIndex.unlike(1, 3)).thenReturn(true);
+
+        buffer.submit(new LikeEvent(1, 1, true));
+        buffer.submit(new LikeEvent(1, 2, true));
+        buffer.submit(new LikeEvent(1, 3, false));
+        buffer.flush();
+
+        ArgumentCaptor<List<LikeEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(filmStorage).applyLikeBatch(captor.capture());
+        assertThat(captor.getValue()).hasSize(3);
+        verify(leaderboard).put(1, 2);
+        verify(likeIndex).like(1, 2);
+        verify(likeIndex).unlike(1, 3);
+        verify(trendingFilms, times(1)).record(eq(1), eq(1), anyLong());
+        verify(trendingFilms).record(1, -1, likedAt);
+        verify(approximateLeaderboard, times(1)).record(1, 1);
+        verify(approximateLeaderboard).record(1, -1);
+    }
+
+    @Test
+    void flush_WhenNewPairIsLikedAndUnlikedInOneBatch_ShouldNotRecordPhantomLike() {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 10, 100, 1000, 0);
+        when(filmStorage.applyLikeBatch(anyList())).thenReturn(new LikeBatchResult(Map.of(), Map.of()));
+
+        buffer.submit(new LikeEvent(1, 1, true));
+        buffer.submit(new LikeEvent(1, 1, false));
+        buffer.flush();
+
+        verify(likeIndex, never()).like(anyInt(), anyInt());
+        verify(likeIndex).unlike(1, 1);
+        verifyNoInteractions(trendingFilms, approximateLeaderboard);
+    }
+
+    @Test
+    void flush_WhenExistingLikeIsUnlikedAndLikedAgain_ShouldNotCountItTwice() {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 10, 100, 1000, 0);
+        when(filmStorage.applyLikeBatch(anyList())).thenReturn(new LikeBatchResult(Map.of(), Map.of()));
+        when(likeIndex.like(1, 1)).thenReturn(false);
+
+        buffer.submit(new LikeEvent(1, 1, false));
+        buffer.submit(new LikeEvent(1, 1, true));
+        buffer.flush();
+
+        verify(likeIndex, never()).unlike(anyInt(), anyInt());
+        verify(likeIndex).like(1, 1);
+        verifyNoInteractions(trendingFilms, approximateLeaderboard);
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectEvent() {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 1, 100, 1000, 0);
+
+        buffer.submit(new LikeEvent(1, 1, true));
+
+        assertThatThrownBy(() -> buffer.submit(new LikeEvent(1, 2, true)))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    void flush_WhenBatchFails_ShouldFallBackToSingleWrites() {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 10, 100, 1000, 0);
+        when(filmStorage.applyLikeBatch(anyList())).thenThrow(new DataIntegrityViolationException("fk"));
+        when(filmStorage.addLike(1, 1)).thenReturn(true);
+        when(filmStorage.addLike(999, 1)).thenThrow(new DataIntegrityViolationException("fk"));
+
+        buffer.submit(new LikeEvent(1, 1, true));
+        buffer.submit(new LikeEvent(999, 1, true));
+        buffer.flush();
+
+        verify(leaderboard).increment(1, 1);
+        verify(leaderboard, never()).increment(999, 1);
+        verify(likeIndex).like(1, 1);
+        verify(likeIndex, never()).like(999, 1);
+    }
+
+    @Test
+    void shutdown_ShouldDrainQueue() throws InterruptedException {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 10, 100, 1000, 0);
+        when(filmStorage.applyLikeBatch(anyList())).thenReturn(new LikeBatchResult(Map.of(), Map.of()));
+
+        buffer.submit(new LikeEvent(1, 1, true));
+        buffer.shutdown();
+
+        verify(filmStorage).applyLikeBatch(anyList());
+    }
+
+    @Test
+    void submit_AfterShutdown_ShouldRejectEventWithServiceUnavailable() throws InterruptedException {
+        LikeWriteBehindBuffer buffer = new LikeWriteBehindBuffer(filmStorage, leaderboard, likeIndex, trendingFilms,
+                approximateLeaderboard, true, 10, 1, 1000, 0);
+        buffer.start();
+        buffer.shutdown();
+
+        assertThatThrownBy(() -> buffer.submit(new LikeEvent(1, 1, true)))
+                .isInstanceOf(ServiceUnavailableException.class);
+        verifyNoInteractions(filmStorage);
+    }
+}
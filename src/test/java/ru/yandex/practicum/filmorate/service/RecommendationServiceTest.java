@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private LikeIndex likeIndex;
+
+    @InjectMocks
+    private RecommendationService recommendationService;
+
+    @Test
+    void getRecommendations_ShouldLoadRecommendedFilmsInBatch() {
+        // given
+        List<Integer> filmIds = List.of(3, 4);
+        List<Film> expectedFilms = List.of(new Film(), new Film());
+        when(likeIndex.recommend(1, 10)).thenReturn(filmIds);
+        when(filmStorage.findByIds(filmIds)).thenReturn(expectedFilms);
+
+        // when
+        List<Film> result = recommendationService.getRecommendations(1, 10);
+
+        // then
+        assertThat(result).isEqualTo(expectedFilms);
+        verify(userCache).validateExist(List.of(1));
+    }
+
+    @Test
+    void getRecommendations_WithLimitOutOfRange_ShouldThrowValidationException() {
+        // when/then
+        assertThatThrownBy(() -> recommendationService.getRecommendations(1, 0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> recommendationService.getRecommendations(1, Integer.MAX_VALUE))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(likeIndex, filmStorage);
+    }
+}
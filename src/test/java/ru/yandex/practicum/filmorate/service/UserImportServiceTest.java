@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    private static final String USER = "{\"email\":\"%s@test.com\",\"login\":\"%s\",\"birthday\":\"1990-01-01\"}";
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserDbStorage userStorage;
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final AtomicInteger ids = new AtomicInteger(100);
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new UserImportService(new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), userService, userStorage, 3);
+        lenient().when(userStorage.createBatch(any())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            batchSizes.add(users.size());
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        });
+    }
+
+    @Test
+    void importUsers_ShouldCheckUniquenessOncePerChunk() throws Exception {
+        when(userStorage.findByEmailsOrLogins(any(), any())).thenReturn(List.of());
+        String body = "[" + String.join(",", user("a", "a"), user("b", "b"), user("c", "c"), user("d", "d")) + "]";
+
+        List<ImportResult> results = importUsers(body);
+
+        assertThat(results).extracting(ImportResult::getStatus).containsOnly(ImportResult.Status.CREATED);
+        assertThat(results).extracting(ImportResult::getId).containsExactly(101, 102, 103, 104);
+        assertThat(batchSizes).containsExactly(3, 1);
+        verify(userStorage, times(2)).findByEmailsOrLogins(any(), any());
+        verify(userService, times(2)).registerCreated(any());
+    }
+
+    @Test
+    void importUsers_ShouldReportConflictsWithoutAbortingChunk() throws Exception {
+        User existing = new User();
+        existing.setEmail("taken@test.com");
+        existing.setLogin("taken");
+        when(userStorage.findByEmailsOrLogins(any(), any())).thenReturn(List.of(existing));
+        String body = String.join("\n",
+                user("taken", "fresh"),
+                user("fresh", "fresh"),
+                user("other", "fresh"),
+                "{\"email\":\"не почта\",\"login\":\"x\",\"birthday\":\"1990-01-01\"}");
+
+        List<ImportResult> results = importUsers(body);
+
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportResult.Status.CONFLICT,
+                ImportResult.Status.CREATED,
+                ImportResult.Status.CONFLICT,
+                ImportResult.Status.INVALID);
+        assertThat(results.get(0).getError()).isEqualTo("Email taken@test.com уже занят");
+        assertThat(results.get(2).getError()).isEqualTo("Логин fresh уже занят");
+        assertThat(results.get(3).getError()).isEqualTo("Электронная почта должна содержать символ @");
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void importUsers_WhenBatchHitsConcurrentDuplicate_ShouldFallBackToSingleInserts() throws Exception {
+        when(userStorage.findByEmailsOrLogins(any(), any())).thenReturn(List.of());
+        doThrow(new DuplicateKeyException("users.email")).when(userStorage).createBatch(any());
+        when(userStorage.create(any())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if ("raced".equals(user.getLogin())) {
+                throw new DuplicateKeyException("users.login");
+            }
+            user.setId(ids.incrementAndGet());
+            return user;
+        });
+        String body = user("a", "a") + "\n" + user("raced", "raced");
+
+        List<ImportResult> results = importUsers(body);
+
+        assertThat(results).extracting(ImportResult::getStatus)
+                .containsExactly(ImportResult.Status.CREATED, ImportResult.Status.CONFLICT);
+        assertThat(results.get(0).getId()).isEqualTo(101);
+        verify(userService).registerCreated(argThat(created -> created.size() == 1));
+    }
+
+    @Test
+    void importUsers_WhenBatchInsertFails_ShouldReportAcceptedRowsAsFailedAndKeepConflicts() throws Exception {
+        User existing = new User();
+        existing.setEmail("taken@test.com");
+        existing.setLogin("taken");
+        when(userStorage.findByEmailsOrLogins(any(), any())).thenReturn(List.of(existing), List.of());
+        doThrow(new DataIntegrityViolationException("constraint"))
+                .doAnswer(invocation -> {
+                    List<User> users = invocation.getArgument(0);
+                    users.forEach(user -> user.setId(ids.incrementAndGet()));
+                    return users;
+                })
+                .when(userStorage).createBatch(any());
+        String body = String.join("\n", user("taken", "a"), user("b", "b"), user("c", "c"), user("d", "d"));
+
+        List<ImportResult> results = importUsers(body);
+
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportResult.Status.CONFLICT,
+                ImportResult.Status.FAILED,
+                ImportResult.Status.FAILED,
+                ImportResult.Status.CREATED);
+        assertThat(results.get(1).getError()).contains("отправить повторно");
+        assertThat(results.get(3).getId()).isEqualTo(101);
+    }
+
+    @Test
+    void importUsers_WhenUniquenessCheckFails_ShouldReportChunkAsFailed() throws Exception {
+        when(userStorage.findByEmailsOrLogins(any(), any()))
+                .thenThrow(new DataIntegrityViolationException("connection"))
+                .thenReturn(List.of());
+        String body = String.join("\n", user("a", "a"), user("b", "b"), user("c", "c"), user("d", "d"));
+
+        List<ImportResult> results = importUsers(body);
+
+        assertThat(results).extracting(ImportResult::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportResult.Status.FAILED,
+                ImportResult.Status.FAILED,
+                ImportResult.Status.FAILED,
+                ImportResult.Status.CREATED);
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    private List<ImportResult> importUsers(String body) throws IOException {
+        List<ImportResult> results = new ArrayList<>();
+        importService.importUsers(stream(body), results::add);
+        return results;
+    }
+
+    private static String user(String email, String login) {
+        return String.format(USER, email, login);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
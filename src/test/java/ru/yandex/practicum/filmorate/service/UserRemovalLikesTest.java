@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.film.ApproximateLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Удаление пользователя вместе с его лайками: счётчики в БД, рейтинг и likeCount в карточке фильма
+// должны сразу отражать снятые лайки, не дожидаясь ночной сверки
+@JdbcTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {UserService.class, FilmService.class, UserDbStorage.class, UserRowMapper.class,
+        FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class, FriendshipGraph.class,
+        LikeIndex.class, FilmSimilarityIndex.class, UserCache.class, EntityVersions.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, FilmLeaderboard.class,
+        LikeWriteBehindBuffer.class, TrendingFilms.class, ApproximateLeaderboard.class, FilmCache.class})
+@Import({UserService.class, FilmService.class, UserDbStorage.class, UserRowMapper.class,
+        FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class, FriendshipGraph.class,
+        LikeIndex.class, FilmSimilarityIndex.class, UserCache.class, EntityVersions.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, FilmLeaderboard.class,
+        LikeWriteBehindBuffer.class, TrendingFilms.class, ApproximateLeaderboard.class, FilmCache.class})
+class UserRemovalLikesTest {
+
+    private final UserService userService;
+    private final FilmService filmService;
+
+    @Test
+    void remove_ShouldTakeBackLikesOfDeletedUser() {
+        // data.sql: фильм 1 лайкнули пользователи 1 и 2, фильм 2 — пользователь 3, фильм 3 — пользователь 1
+        filmService.addLike(3, 3);
+        assertThat(filmService.getTopFilms(3)).extracting(Film::getId).containsExactly(1, 3, 2);
+        assertThat(filmService.filmById(3).getLikeCount()).isEqualTo(2);
+
+        userService.remove(1);
+
+        assertThat(filmService.getTopFilms(3)).extracting(Film::getId).containsExactly(1, 2, 3);
+        assertThat(filmService.getTopFilms(3)).extracting(Film::getLikeCount).containsExactly(1, 1, 1);
+        assertThat(filmService.filmById(1).getLikeCount()).isEqualTo(1);
+        assertThat(filmService.filmById(3).getLikeCount()).isEqualTo(1);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ValidationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -7,13 +8,21 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.user.UserCache;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +31,21 @@ class UserServiceTest {
     @Mock
     private UserDbStorage userStorage;
 
+    @Mock
+    private FriendshipGraph friendshipGraph;
+
+    @Mock
+    private LikeIndex likeIndex;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private EntityVersions versions;
+
+    @Mock
+    private FilmService filmService;
+
     @InjectMocks
     private UserService userService;
 
@@ -87,6 +111,7 @@ class UserServiceTest {
 
         // then
         verify(userStorage).addFriend(userId, friendId);
+        verify(friendshipGraph).addEdge(userId, friendId);
     }
 
     @Test
@@ -102,6 +127,7 @@ class UserServiceTest {
 
         // then
         verify(userStorage).removeFriend(userId, friendId);
+        verify(friendshipGraph).removeEdge(userId, friendId);
     }
 
     @Test
@@ -120,19 +146,76 @@ class UserServiceTest {
     }
 
     @Test
-    void getCommonFriends_ShouldCallStorage() {
+    void getCommonFriends_ShouldIntersectGraphAndLoadUsersInBatch() {
         // given
         Integer userId = 1;
         Integer otherId = 2;
+        int[] commonIds = {3};
         List<User> expectedFriends = List.of(new User());
-        when(userStorage.getCommonFriends(userId, otherId)).thenReturn(expectedFriends);
+        when(friendshipGraph.commonFriends(userId, otherId)).thenReturn(commonIds);
+        when(userStorage.findByIds(commonIds)).thenReturn(expectedFriends);
 
         // when
         List<User> result = userService.getCommonFriends(userId, otherId);
 
         // then
         assertThat(result).isEqualTo(expectedFriends);
-        verify(userStorage).getCommonFriends(userId, otherId);
+        verify(userCache).validateExist(List.of(userId, otherId));
+    }
+
+    @Test
+    void getFriendSuggestions_WithLimitOutOfRange_ShouldThrowValidationException() {
+        // when/then
+        assertThatThrownBy(() -> userService.getFriendSuggestions(1, 0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> userService.getFriendSuggestions(1, Integer.MAX_VALUE))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(friendshipGraph);
+    }
+
+    @Test
+    void getFriendshipPath_WithoutPath_ShouldThrowNotFoundException() {
+        // given
+        when(friendshipGraph.shortestPath(1, 2)).thenReturn(new int[0]);
+
+        // when/then
+        assertThatThrownBy(() -> userService.getFriendshipPath(1, 2))
+                .isInstanceOf(NotFoundException.class);
+        verify(userCache).validateExist(List.of(1, 2));
+    }
+
+    @Test
+    void findPage_WithMoreRows_ShouldReturnNextCursor() {
+        // given
+        User user1 = new User();
+        user1.setId(1);
+        User user2 = new User();
+        user2.setId(2);
+        User user3 = new User();
+        user3.setId(3);
+        when(userStorage.findPage(null, 3)).thenReturn(List.of(user1, user2, user3));
+
+        // when
+        Page<User> page = userService.findPage(null, 2);
+
+        // then
+        assertThat(page.getItems()).extracting(User::getId).containsExactly(1, 2);
+        assertThat(page.getNextCursor()).isEqualTo(2);
+    }
+
+    @Test
+    void findPage_WithLastPage_ShouldReturnNullCursor() {
+        // given
+        User user = new User();
+        user.setId(3);
+        when(userStorage.findPage(2, 3)).thenReturn(List.of(user));
+
+        // when
+        Page<User> page = userService.findPage(2, 2);
+
+        // then
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
     }
 
     @Test
@@ -164,52 +247,56 @@ class UserServiceTest {
         // then
         assertThat(result).isEqualTo(user);
         verify(userStorage).update(user);
+        verify(userCache).invalidate(1);
     }
 
     @Test
-    void remove_ShouldCallStorage() {
+    void remove_ShouldCallStorageAndUnregisterLikes() {
         // given
         Integer id = 1;
-        String expected = "Пользователь удален";
-        when(userStorage.remove(id)).thenReturn(expected);
+        Map<Integer, Long> likedAt = Map.of(2, 1_700_000_000_000L, 3, 1_700_000_600_000L);
+        when(userStorage.removeWithLikes(id)).thenReturn(likedAt);
 
         // when
         String result = userService.remove(id);
 
         // then
-        assertThat(result).isEqualTo(expected);
-        verify(userStorage).remove(id);
+        assertThat(result).isEqualTo("Пользователь успешно удалён");
+        verify(userStorage).removeWithLikes(id);
+        verify(likeIndex).removeUser(id);
+        verify(userCache).invalidate(id);
+        verify(filmService).unregisterLikes(likedAt);
     }
 
     @Test
-    void userById_ShouldCallStorage() {
+    void userById_ShouldReadThroughCache() {
         // given
         Integer id = 1;
         User expectedUser = new User();
         expectedUser.setId(1);
-        when(userStorage.userById(id)).thenReturn(expectedUser);
+        when(userCache.get(id)).thenReturn(expectedUser);
 
         // when
         User result = userService.userById(id);
 
         // then
         assertThat(result).isEqualTo(expectedUser);
-        verify(userStorage).userById(id);
+        verify(userStorage, never()).userById(id);
     }
 
     @Test
-    void validateUserExists_ShouldCallStorage() {
+    void validateUserExists_ShouldReadThroughCache() {
         // given
         Integer id = 1;
         User expectedUser = new User();
         expectedUser.setId(1);
-        when(userStorage.validateUserExists(id)).thenReturn(expectedUser);
+        when(userCache.get(id)).thenReturn(expectedUser);
 
         // when
         User result = userService.validateUserExists(id);
 
         // then
         assertThat(result).isEqualTo(expectedUser);
-        verify(userStorage).validateUserExists(id);
+        verify(userCache).get(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkedSortedIntsTest {
+
+    @Test
+    void insertAndDelete_ShouldKeepOrderAcrossChunksAndLeaveSourceUntouched() {
+        ChunkedSortedInts values = ChunkedSortedInts.EMPTY;
+        for (int i = 3 * ChunkedSortedInts.CHUNK_SIZE; i > 0; i--) {
+            values = values.insert(2 * i);
+        }
+        ChunkedSortedInts source = values;
+
+        ChunkedSortedInts inserted = source.insert(7);
+        ChunkedSortedInts deleted = inserted.delete(2);
+
+        assertThat(source.size()).isEqualTo(3 * ChunkedSortedInts.CHUNK_SIZE);
+        assertThat(inserted.contains(7)).isTrue();
+        assertThat(source.contains(7)).isFalse();
+        assertThat(deleted.contains(2)).isFalse();
+        assertThat(deleted.toArray()).isSorted().hasSize(3 * ChunkedSortedInts.CHUNK_SIZE);
+        assertThat(source.insert(4)).isSameAs(source);
+        assertThat(source.delete(5)).isSameAs(source);
+        assertThat(ChunkedSortedInts.of(new int[]{5}).delete(5)).isSameAs(ChunkedSortedInts.EMPTY);
+    }
+
+    @Test
+    void randomUpdates_ShouldMatchSortedSet() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        ChunkedSortedInts actual = ChunkedSortedInts.EMPTY;
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                actual = actual.delete(value);
+            } else {
+                expected.add(value);
+                actual = actual.insert(value);
+            }
+        }
+
+        assertThat(actual.size()).isEqualTo(expected.size());
+        assertThat(actual.toArray()).containsExactly(expected.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Test
+    void intersectionSize_ShouldMatchPlainArrays() {
+        int[] first = new int[2000];
+        int[] second = new int[1500];
+        for (int i = 0; i < first.length; i++) {
+            first[i] = 3 * i;
+        }
+        for (int i = 0; i < second.length; i++) {
+            second[i] = 2 * i;
+        }
+
+        assertThat(ChunkedSortedInts.intersectionSize(ChunkedSortedInts.of(first), ChunkedSortedInts.of(second)))
+                .isEqualTo(SortedInts.intersectionSize(first, second));
+        assertThat(ChunkedSortedInts.intersectionSize(ChunkedSortedInts.of(first), ChunkedSortedInts.EMPTY))
+                .isZero();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntIntMapTest {
+
+    @Test
+    void incrementAndGet_ShouldSurviveGrowth() {
+        IntIntMap map = new IntIntMap(4);
+        for (int i = 0; i < 1000; i++) {
+            map.increment(i % 300, 1);
+        }
+
+        assertThat(map.size()).isEqualTo(300);
+        assertThat(map.get(0, -1)).isEqualTo(4);
+        assertThat(map.get(299, -1)).isEqualTo(3);
+        assertThat(map.get(300, -1)).isEqualTo(-1);
+        assertThat(map.containsKey(150)).isTrue();
+    }
+
+    @Test
+    void forEach_ShouldVisitEveryEntry() {
+        IntIntMap map = new IntIntMap(8);
+        map.put(7, 70);
+        map.put(-3, 30);
+        map.put(7, 71);
+        Map<Integer, Integer> visited = new HashMap<>();
+
+        map.forEach(visited::put);
+
+        assertThat(visited).containsExactlyInAnyOrderEntriesOf(Map.of(7, 71, -3, 30));
+    }
+}
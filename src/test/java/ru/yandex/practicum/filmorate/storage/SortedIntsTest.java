@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedIntsTest {
+
+    @Test
+    void insertAndDelete_ShouldKeepOrderAndLeaveSourceUntouched() {
+        int[] source = {2, 5, 9};
+
+        int[] inserted = SortedInts.insert(source, 7);
+        int[] deleted = SortedInts.delete(inserted, 2);
+
+        assertThat(inserted).containsExactly(2, 5, 7, 9);
+        assertThat(deleted).containsExactly(5, 7, 9);
+        assertThat(source).containsExactly(2, 5, 9);
+        assertThat(SortedInts.insert(source, 5)).isSameAs(source);
+        assertThat(SortedInts.delete(source, 4)).isSameAs(source);
+    }
+
+    @Test
+    void intersection_ShouldMergeSortedArrays() {
+        int[] first = {1, 3, 5, 7};
+        int[] second = {3, 4, 7, 8};
+
+        assertThat(SortedInts.intersection(first, second)).containsExactly(3, 7);
+        assertThat(SortedInts.intersectionSize(first, second)).isEqualTo(2);
+        assertThat(SortedInts.intersection(first, SortedInts.EMPTY)).isEmpty();
+        assertThat(SortedInts.contains(first, 5)).isTrue();
+        assertThat(SortedInts.contains(first, 4)).isFalse();
+    }
+
+    @Test
+    void invert_ShouldReturnSortedSources() {
+        Map<Integer, int[]> inverted = SortedInts.invert(Map.of(
+                3, new int[]{10, 20},
+                1, new int[]{20},
+                2, new int[]{10}));
+
+        assertThat(inverted).containsOnlyKeys(10, 20);
+        assertThat(inverted.get(10)).containsExactly(2, 3);
+        assertThat(inverted.get(20)).containsExactly(1, 3);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+// Точность приближённого рейтинга на потоке лайков с распределением Ципфа: эталоном служат точные
+// счётчики и точный FilmLeaderboard, построенные по тому же потоку
+@ExtendWith(MockitoExtension.class)
+class ApproximateLeaderboardAccuracyTest {
+
+    private static final int FILMS = 2000;
+    private static final int LIKES = 50_000;
+    private static final int TOP = 10;
+    private static final int CAPACITY = 100;
+    private static final double EPSILON = 0.001;
+    private static final double HEAVY_HITTER_SHARE = 0.01;
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    @Test
+    void zipfStream_ShouldFindHeavyHittersWithinErrorBound() {
+        when(filmStorage.countLikes()).thenReturn(Map.of());
+        ApproximateLeaderboard approximate = new ApproximateLeaderboard(filmStorage, true, EPSILON, 0.01, CAPACITY);
+        approximate.reload();
+        FilmLeaderboard exact = new FilmLeaderboard(filmStorage, false);
+        Map<Integer, Integer> exactCounts = new HashMap<>();
+
+        for (int filmId : zipfLikes(new Random(42))) {
+            approximate.record(filmId, 1);
+            exact.increment(filmId, 1);
+            exactCounts.merge(filmId, 1, Integer::sum);
+        }
+
+        long errorBound = approximate.errorBound();
+        assertThat(errorBound).isEqualTo((long) Math.ceil(EPSILON * LIKES));
+        for (Map.Entry<Integer, Integer> entry : exactCounts.entrySet()) {
+            assertThat(approximate.estimate(entry.getKey()))
+                    .isBetween((long) entry.getValue(), entry.getValue() + errorBound);
+        }
+
+        List<Integer> leaders = approximate.top(CAPACITY);
+        exactCounts.forEach((filmId, likes) -> {
+            if (likes > HEAVY_HITTER_SHARE * LIKES) {
+                assertThat(leaders).contains(filmId);
+            }
+        });
+
+        List<Integer> exactTop = exact.top(TOP);
+        long threshold = exactCounts.get(exactTop.get(TOP - 1)) - 2 * errorBound;
+        assertThat(approximate.top(TOP)).hasSize(TOP)
+                .allSatisfy(filmId -> assertThat((long) exactCounts.get(filmId)).isGreaterThanOrEqualTo(threshold));
+    }
+
+    // Популярность фильма k пропорциональна 1 / k
+    private static int[] zipfLikes(Random random) {
+        double[] cumulative = new double[FILMS];
+        double sum = 0;
+        for (int k = 1; k <= FILMS; k++) {
+            sum += 1.0 / k;
+            cumulative[k - 1] = sum;
+        }
+        int[] likes = new int[LIKES];
+        for (int i = 0; i < LIKES; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            likes[i] = (index >= 0 ? index : -index - 1) + 1;
+        }
+        return likes;
+    }
+}
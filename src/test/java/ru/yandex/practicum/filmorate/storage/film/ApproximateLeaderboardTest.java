@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ApproximateLeaderboardTest {
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    private ApproximateLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new ApproximateLeaderboard(filmStorage, true, 0.01, 0.01, 3);
+    }
+
+    @Test
+    void reload_ShouldSeedSketchFromLikeCounts() {
+        when(filmStorage.countLikes()).thenReturn(Map.of(1, 5, 2, 9, 3, 0, 4, 7, 5, 1));
+
+        leaderboard.reload();
+
+        assertThat(leaderboard.top(10)).containsExactly(2, 4, 1);
+        assertThat(leaderboard.estimate(2)).isGreaterThanOrEqualTo(9);
+    }
+
+    @Test
+    void record_ShouldEvictMinimumWhenNewFilmOvertakesIt() {
+        when(filmStorage.countLikes()).thenReturn(Map.of(1, 5, 2, 9, 4, 7));
+        leaderboard.reload();
+
+        for (int i = 0; i < 6; i++) {
+            leaderboard.record(8, 1);
+        }
+
+        assertThat(leaderboard.top(3)).containsExactly(2, 4, 8);
+    }
+
+    @Test
+    void record_WithUnlikes_ShouldLowerEstimate() {
+        when(filmStorage.countLikes()).thenReturn(Map.of(1, 5, 2, 9));
+        leaderboard.reload();
+
+        leaderboard.record(2, -6);
+
+        assertThat(leaderboard.top(2)).containsExactly(1, 2);
+        assertThat(leaderboard.errorBound()).isEqualTo(1);
+    }
+
+    @Test
+    void disabled_ShouldIgnoreLikesAndSkipLoading() {
+        ApproximateLeaderboard disabled = new ApproximateLeaderboard(filmStorage, false, 0.01, 0.01, 3);
+
+        disabled.reload();
+        disabled.record(1, 1);
+
+        assertThat(disabled.top(10)).isEmpty();
+        verifyNoInteractions(filmStorage);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FilmCacheTest {
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    private final EntityVersions versions = new EntityVersions();
+    private FilmCache filmCache;
+
+    @BeforeEach
+    void setUp() {
+        filmCache = new FilmCache(filmStorage, versions, 100, 600);
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndCountHits() {
+        when(filmStorage.filmById(1)).thenReturn(film(1, "Матрица"));
+
+        filmCache.get(1);
+        filmCache.get(1);
+        Film result = filmCache.get(1);
+
+        assertThat(result.getName()).isEqualTo("Матрица");
+        verify(filmStorage, times(1)).filmById(1);
+        CacheStats stats = filmCache.stats();
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ShouldReturnCopiesOfCachedFilm() {
+        when(filmStorage.filmById(1)).thenReturn(film(1, "Матрица"));
+
+        filmCache.get(1).setName("Изменено");
+
+        assertThat(filmCache.get(1).getName()).isEqualTo("Матрица");
+    }
+
+    @Test
+    void invalidate_ShouldForceReload() {
+        when(filmStorage.filmById(1)).thenReturn(film(1, "Матрица"), film(1, "Матрица: Перезагрузка"));
+
+        filmCache.get(1);
+        filmCache.invalidate(1);
+
+        assertThat(filmCache.get(1).getName()).isEqualTo("Матрица: Перезагрузка");
+        verify(filmStorage, times(2)).filmById(1);
+    }
+
+    @Test
+    void invalidate_ShouldChangeFilmEtag() {
+        String before = versions.filmEtag(1, 0);
+        String other = versions.filmEtag(2, 0);
+
+        filmCache.invalidate(1);
+
+        assertThat(versions.filmEtag(1, 0)).isNotEqualTo(before);
+        assertThat(versions.filmEtag(2, 0)).isEqualTo(other);
+
+        String afterSingle = versions.filmEtag(1, 0);
+        filmCache.invalidateAll();
+
+        assertThat(versions.filmEtag(1, 0)).isNotEqualTo(afterSingle);
+        assertThat(versions.filmEtag(2, 0)).isNotEqualTo(other);
+    }
+
+    @Test
+    void get_WithMissingFilm_ShouldPropagateNotFoundAndNotCache() {
+        when(filmStorage.filmById(99)).thenThrow(new NotFoundException("Фильм с ID 99 не найден"));
+
+        assertThatThrownBy(() -> filmCache.get(99)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmCache.get(99)).isInstanceOf(NotFoundException.class);
+        verify(filmStorage, times(2)).filmById(99);
+    }
+
+    @Test
+    void get_ConcurrentMisses_ShouldBeCoalescedIntoOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(filmStorage.filmById(1)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return film(1, "Матрица");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Film>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> filmCache.get(1)));
+            }
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Film> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(filmStorage, times(1)).filmById(1);
+    }
+
+    private static Film film(int id, String name) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        return film;
+    }
+}
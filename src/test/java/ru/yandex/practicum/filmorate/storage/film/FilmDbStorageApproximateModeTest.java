@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// В приближённом режиме популярности лайки не трогают like_count: столбец выравнивает ночная сверка
+@JdbcTest
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "filmorate.popularity.approximate.enabled=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+@Import({FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+class FilmDbStorageApproximateModeTest {
+
+    private final FilmDbStorage filmStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("UPDATE film SET like_count = 0");
+    }
+
+    @Test
+    void addLikeAndRemoveLike_ShouldLeaveLikeCountColumnUntouched() {
+        filmStorage.addLike(1, 1);
+        filmStorage.addLike(1, 2);
+        filmStorage.removeLike(1, 1);
+
+        assertThat(likeCount(1)).isZero();
+        assertThat(filmStorage.countLikes()).containsEntry(1, 1).hasSize(1);
+    }
+
+    @Test
+    void applyLikeBatch_ShouldWriteLikesWithoutRecount() {
+        LikeBatchResult result = filmStorage.applyLikeBatch(List.of(
+                new LikeEvent(1, 1, true),
+                new LikeEvent(2, 1, true),
+                new LikeEvent(2, 2, true)));
+
+        assertThat(result.likeCounts()).isEmpty();
+        assertThat(likeCount(2)).isZero();
+        assertThat(filmStorage.countLikes()).containsEntry(1, 1).containsEntry(2, 2);
+    }
+
+    @Test
+    void reconcileLikeCounts_ShouldStillRebuildCounters() {
+        filmStorage.addLike(3, 1);
+
+        filmStorage.reconcileLikeCounts();
+
+        assertThat(likeCount(3)).isEqualTo(1);
+    }
+
+    private Integer likeCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT like_count FROM film WHERE film_id = ?", Integer.class, filmId);
+    }
+}
@@ -7,18 +7,31 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.test.context.ContextConfiguration;
 import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -26,11 +39,15 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@ContextConfiguration(classes = {FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class})
-@Import({FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class})
+@ContextConfiguration(classes = {FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+@Import({FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
 class FilmDbStorageTest {
 
     private final FilmDbStorage filmStorage;
+    private final FilmRowMapper filmRowMapper;
+    private final ReferenceDataRegistry referenceData;
     private final JdbcTemplate jdbcTemplate;
 
     @BeforeEach
@@ -92,6 +109,17 @@ class FilmDbStorageTest {
         assertThat(films).hasSize(3);
     }
 
+    @Test
+    void findPage_ShouldReturnFilmsAfterCursorInIdOrder() {
+        List<Film> firstPage = filmStorage.findPage(null, 2);
+        List<Film> secondPage = filmStorage.findPage(2, 2);
+
+        assertThat(firstPage).extracting(Film::getId).containsExactly(1, 2);
+        assertThat(secondPage).extracting(Film::getId).containsExactly(3);
+        assertThat(secondPage.get(0).getGenres()).extracting(Genre::getId)
+                .containsExactly(4, 6);
+    }
+
     @Test
     void filmById_WithValidId_ShouldReturnFilmWithAllData() {
         Film film = filmStorage.filmById(1);
@@ -146,8 +174,7 @@ class FilmDbStorageTest {
         newFilm.setReleaseDate(LocalDate.of(2023, 1, 1));
         newFilm.setDuration(120);
 
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
         newFilm.setMpa(mpa);
 
         Film createdFilm = filmStorage.create(newFilm);
@@ -158,6 +185,29 @@ class FilmDbStorageTest {
         assertThat(savedFilm.getGenres()).isEmpty();
     }
 
+    @Test
+    void createBatch_ShouldAssignIdsInOrderAndSaveGenres() {
+        Mpa mpa = new Mpa(1, null);
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setReleaseDate(LocalDate.of(2000 + i, 1, 1));
+            film.setDuration(90 + i);
+            film.setMpa(mpa);
+            film.setGenres(i == 1 ? new LinkedHashSet<>(List.of(new Genre(1, null), new Genre(3, null))) : Set.of());
+            films.add(film);
+        }
+
+        List<Film> created = filmStorage.createBatch(films);
+
+        assertThat(created).extracting(Film::getId).containsExactly(4, 5, 6);
+        assertThat(filmStorage.filmById(5).getName()).isEqualTo("Фильм 1");
+        assertThat(filmStorage.filmById(5).getGenres()).extracting(Genre::getId).containsExactlyInAnyOrder(1, 3);
+        assertThat(filmStorage.filmById(6).getGenres()).isEmpty();
+        assertThat(filmStorage.filmById(6).getVersion()).isZero();
+    }
+
     // ==================== ТЕСТЫ НА ОБНОВЛЕНИЕ ====================
 
     @Test
@@ -165,8 +215,7 @@ class FilmDbStorageTest {
         Film film = new Film();
         film.setId(999);
         film.setName("Тест");
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
         film.setMpa(mpa);
 
         assertThatThrownBy(() -> filmStorage.update(film))
@@ -174,6 +223,16 @@ class FilmDbStorageTest {
                 .hasMessageContaining("Фильм с ID 999 не найден");
     }
 
+    @Test
+    void update_WithoutId_ShouldThrowNotFoundException() {
+        Film film = filmStorage.filmById(1);
+        film.setId(null);
+
+        assertThatThrownBy(() -> filmStorage.update(film))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Фильм с ID null не найден");
+    }
+
     @Test
     void update_WithoutMpa_ShouldThrowException() {
         Film film = filmStorage.filmById(1);
@@ -195,6 +254,77 @@ class FilmDbStorageTest {
         assertThat(retrievedFilm.getGenres()).isEmpty();
     }
 
+    @Test
+    void update_ShouldWriteOnlyChangedGenres() {
+        List<String> genreWrites = new ArrayList<>();
+        JdbcTemplate recordingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int update(String sql, Object... args) {
+                if (sql.contains("film_genres")) {
+                    genreWrites.add(sql);
+                }
+                return super.update(sql, args);
+            }
+
+            @Override
+            public int[] batchUpdate(String sql, BatchPreparedStatementSetter pss) {
+                genreWrites.add(sql.substring(0, sql.indexOf(' ')) + " x" + pss.getBatchSize());
+                return super.batchUpdate(sql, pss);
+            }
+        };
+        FilmDbStorage recordingStorage = new FilmDbStorage(recordingTemplate, filmRowMapper, referenceData);
+        Film film = recordingStorage.filmById(1);
+        film.setGenres(new LinkedHashSet<>(List.of(new Genre(4, "Триллер"), new Genre(5, "Документальный"))));
+
+        recordingStorage.update(film);
+
+        // Драма (2) удаляется, документальный (5) добавляется, триллер (4) остаётся на месте
+        assertThat(genreWrites).containsExactly("DELETE x1", "INSERT x1");
+        assertThat(filmStorage.filmById(1).getGenres()).extracting(Genre::getId).containsExactlyInAnyOrder(4, 5);
+
+        genreWrites.clear();
+        recordingStorage.update(recordingStorage.filmById(1));
+
+        assertThat(genreWrites).isEmpty();
+    }
+
+    @Test
+    void update_WithCurrentVersion_ShouldIncrementVersion() {
+        Film film = filmStorage.filmById(1);
+        assertThat(film.getVersion()).isZero();
+        film.setName("Новое название");
+
+        Film updatedFilm = filmStorage.update(film);
+
+        assertThat(updatedFilm.getVersion()).isEqualTo(1L);
+        assertThat(filmStorage.filmById(1).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void update_WithStaleVersion_ShouldThrowConflictAndKeepRow() {
+        Film first = filmStorage.filmById(1);
+        Film second = filmStorage.filmById(1);
+        first.setName("Первая правка");
+        second.setName("Вторая правка");
+        filmStorage.update(first);
+
+        assertThatThrownBy(() -> filmStorage.update(second))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("версия 0 устарела");
+        assertThat(filmStorage.filmById(1).getName()).isEqualTo("Первая правка");
+    }
+
+    @Test
+    void update_WithoutVersion_ShouldOverwriteAndReturnCurrentVersion() {
+        Film film = filmStorage.filmById(1);
+        filmStorage.update(film);
+        film.setVersion(null);
+
+        Film updatedFilm = filmStorage.update(film);
+
+        assertThat(updatedFilm.getVersion()).isEqualTo(2L);
+    }
+
     // ==================== ТЕСТЫ НА УДАЛЕНИЕ ====================
 
     @Test
@@ -266,8 +396,9 @@ class FilmDbStorageTest {
     @Test
     void removeLike_ShouldRemoveLikeFromFilm() {
         filmStorage.addLike(1, 1);
-        filmStorage.removeLike(1, 1);
+        OptionalLong likedAt = filmStorage.removeLike(1, 1);
 
+        assertThat(likedAt).isPresent();
         Integer likeCount = jdbcTemplate.queryForObject(
                 "SELECT COUNT(*) FROM film_likes WHERE film_id = ?",
                 Integer.class, 1);
@@ -276,7 +407,7 @@ class FilmDbStorageTest {
 
     @Test
     void removeLike_WithNonExistentLike_ShouldDoNothing() {
-        filmStorage.removeLike(1, 999);
+        assertThat(filmStorage.removeLike(1, 999)).isEmpty();
 
         Integer likeCount = jdbcTemplate.queryForObject(
                 "SELECT COUNT(*) FROM film_likes",
@@ -284,50 +415,129 @@ class FilmDbStorageTest {
         assertThat(likeCount).isZero();
     }
 
-    // ==================== ТЕСТЫ НА ПОЛУЧЕНИЕ ТОП ФИЛЬМОВ ====================
+    @Test
+    void removeLike_ShouldReturnTimeOfOriginalLike() {
+        Timestamp likedAt = Timestamp.valueOf("2024-03-01 12:00:00");
+        filmStorage.addLike(1, 1);
+        jdbcTemplate.update("UPDATE film_likes SET created_at = ? WHERE film_id = 1", likedAt);
+
+        assertThat(filmStorage.removeLike(1, 1)).hasValue(likedAt.getTime());
+    }
 
     @Test
-    void getTopFilms_ShouldReturnFilmsOrderedByLikes() {
-        // Добавляем лайки
+    void addLikeAndRemoveLike_ShouldMaintainLikeCountColumn() {
         filmStorage.addLike(1, 1);
-        filmStorage.addLike(1, 2); // Фильм 1: 2 лайка
-        filmStorage.addLike(2, 3); // Фильм 2: 1 лайк
-        filmStorage.addLike(3, 1); // Фильм 3: 1 лайк
+        filmStorage.addLike(1, 2);
+        filmStorage.addLike(1, 2); // Повторный лайк не увеличивает счётчик
+        filmStorage.removeLike(1, 1);
+        filmStorage.removeLike(1, 3); // Несуществующий лайк не уменьшает счётчик
 
-        List<Film> topFilms = filmStorage.getTopFilms(10);
+        Integer likeCount = jdbcTemplate.queryForObject(
+                "SELECT like_count FROM film WHERE film_id = ?",
+                Integer.class, 1);
+        assertThat(likeCount).isEqualTo(1);
+    }
 
-        assertThat(topFilms).isNotEmpty();
-        assertThat(topFilms.get(0).getId()).isEqualTo(1);
-        assertThat(topFilms.get(0).getName()).isEqualTo("Интерстеллар");
+    @Test
+    void reconcileLikeCounts_ShouldRebuildCountersFromLikes() {
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", 2, 1);
+        jdbcTemplate.update("UPDATE film SET like_count = 5 WHERE film_id = ?", 3);
+
+        int fixed = filmStorage.reconcileLikeCounts();
+
+        assertThat(fixed).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT like_count FROM film ORDER BY film_id", Integer.class))
+                .containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void applyLikeBatch_ShouldApplyLastEventPerPairAndRecountFilms() {
+        Timestamp likedAt = Timestamp.valueOf("2024-03-01 12:00:00");
+        filmStorage.addLike(2, 1);
+        jdbcTemplate.update("UPDATE film_likes SET created_at = ? WHERE film_id = 2", likedAt);
+
+        LikeBatchResult result = filmStorage.applyLikeBatch(List.of(
+                new LikeEvent(1, 1, true),
+                new LikeEvent(1, 2, true),
+                new LikeEvent(1, 2, false),
+                new LikeEvent(1, 1, true),
+                new LikeEvent(2, 1, false)));
+
+        assertThat(result.likeCounts()).containsEntry(1, 1).containsEntry(2, 0).hasSize(2);
+        assertThat(result.removedLikeTime(new LikeEvent(2, 1, false))).hasValue(likedAt.getTime());
+        assertThat(result.removedLikeTime(new LikeEvent(1, 2, false))).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM film_likes WHERE film_id = 1", Integer.class))
+                .containsExactly(1);
+    }
+
+    // ==================== ТЕСТЫ НА ВЫБОРКИ ДЛЯ РЕЙТИНГОВ ====================
+
+    @Test
+    void findByIds_ShouldPreserveRequestedOrderAndSkipMissing() {
+        List<Film> films = filmStorage.findByIds(List.of(3, 999, 1));
+
+        assertThat(films).extracting(Film::getId).containsExactly(3, 1);
+        assertThat(films.get(0).getGenres()).isNotEmpty();
+    }
+
+    @Test
+    void findLikerIds_ShouldReturnSortedPrimitiveArray() {
+        filmStorage.addLike(1, 3);
+        filmStorage.addLike(1, 1);
+
+        assertThat(filmStorage.findLikerIds(1)).containsExactly(1, 3);
+        assertThat(filmStorage.findLikerIds(2)).isEmpty();
     }
 
     @Test
-    void getTopFilms_WithLimit_ShouldReturnLimitedNumber() {
+    void loadLikeAdjacency_ShouldGroupLikersByFilm() {
+        filmStorage.addLike(2, 3);
+        filmStorage.addLike(1, 2);
+        filmStorage.addLike(1, 1);
+
+        Map<Integer, int[]> adjacency = filmStorage.loadLikeAdjacency();
+
+        assertThat(adjacency).hasSize(2);
+        assertThat(adjacency.get(1)).containsExactly(1, 2);
+        assertThat(adjacency.get(2)).containsExactly(3);
+    }
+
+    @Test
+    void findLikeTimesSince_ShouldSkipOlderLikes() {
         filmStorage.addLike(1, 1);
         filmStorage.addLike(2, 2);
-        filmStorage.addLike(3, 3);
+        jdbcTemplate.update("UPDATE film_likes SET created_at = ? WHERE film_id = 2",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(30))));
 
-        List<Film> topFilms = filmStorage.getTopFilms(2);
+        Map<Integer, long[]> likeTimes = filmStorage.findLikeTimesSince(Instant.now().minus(Duration.ofDays(1)));
 
-        assertThat(topFilms).hasSize(2);
+        assertThat(likeTimes).containsOnlyKeys(1);
+        assertThat(likeTimes.get(1)).hasSize(1);
     }
 
     @Test
-    void getTopFilms_WithNoLikes_ShouldReturnAllFilms() {
-        List<Film> topFilms = filmStorage.getTopFilms(10);
+    void loadGenreAdjacencyAndReleaseYears_ShouldDescribeEveryFilm() {
+        Map<Integer, int[]> genres = filmStorage.loadGenreAdjacency();
 
-        assertThat(topFilms).hasSize(3);
+        assertThat(genres.get(1)).containsExactly(2, 4);
+        assertThat(genres.get(3)).containsExactly(4, 6);
+        assertThat(filmStorage.findReleaseYears()).containsEntry(1, 2014).containsEntry(3, 1999).hasSize(3);
     }
 
     @Test
-    void getTopFilms_ShouldLoadGenresAndMpa() {
+    void filmById_ShouldCarryLikeCountFromColumn() {
         filmStorage.addLike(1, 1);
+        filmStorage.addLike(1, 2);
+
+        assertThat(filmStorage.filmById(1).getLikeCount()).isEqualTo(2);
+    }
 
-        List<Film> topFilms = filmStorage.getTopFilms(10);
-        Film topFilm = topFilms.get(0);
+    @Test
+    void findLikeCounts_ShouldReturnCounterForEveryFilm() {
+        filmStorage.addLike(1, 1);
+        filmStorage.addLike(1, 2);
 
-        assertThat(topFilm.getMpa()).isNotNull();
-        assertThat(topFilm.getGenres()).isNotEmpty();
+        assertThat(filmStorage.findLikeCounts()).containsEntry(1, 2).containsEntry(2, 0).hasSize(3);
     }
 
     // ==================== ТЕСТЫ НА ВАЛИДАЦИЮ ====================
@@ -346,6 +556,21 @@ class FilmDbStorageTest {
                 .hasMessageContaining("Фильм с ID 999 не найден");
     }
 
+    @Test
+    void existsById_ShouldCheckRowOnly() {
+        assertThat(filmStorage.existsById(1)).isTrue();
+        assertThat(filmStorage.existsById(999)).isFalse();
+    }
+
+    @Test
+    void validateFilmsExist_WithMissingId_ShouldReportFirstMissing() {
+        filmStorage.validateFilmsExist(List.of(1, 2, 3));
+
+        assertThatThrownBy(() -> filmStorage.validateFilmsExist(List.of(1, 998, 999)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Фильм с ID 998 не найден");
+    }
+
     // ==================== ТЕСТЫ НА ЗАГРУЗКУ СВЯЗЕЙ ====================
 
     @Test
@@ -376,6 +601,72 @@ class FilmDbStorageTest {
         });
     }
 
+    @Test
+    void findAll_ShouldIssueConstantNumberOfQueries() {
+        for (int i = 0; i < 50; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO film (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                    "Фильм " + i, "Описание", LocalDate.of(2000, 1, 1), 100, 1);
+            jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", i + 4, 1);
+            filmStorage.addLike(i + 4, 1);
+        }
+        AtomicInteger queries = new AtomicInteger();
+        // Все чтения JdbcTemplate сходятся в два метода: запросы без параметров идут через
+        // query(String, ResultSetExtractor), запросы с параметрами — через query(PreparedStatementCreator, ...)
+        JdbcTemplate countingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public <T> T query(String sql, ResultSetExtractor<T> rse) {
+                queries.incrementAndGet();
+                return super.query(sql, rse);
+            }
+
+            @Override
+            public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse) {
+                queries.incrementAndGet();
+                return super.query(psc, pss, rse);
+            }
+        };
+        FilmDbStorage countingStorage = new FilmDbStorage(countingTemplate, filmRowMapper, referenceData);
+
+        Collection<Film> films = countingStorage.findAll();
+
+        // Фильмы и жанры — по одному запросу независимо от числа фильмов
+        assertThat(queries.get()).isEqualTo(2);
+        assertThat(films).hasSize(53);
+        assertThat(films).filteredOn(film -> film.getId() > 3)
+                .allSatisfy(film -> {
+                    assertThat(film.getGenres()).extracting(Genre::getId).containsExactly(1);
+                    assertThat(film.getLikeCount()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void exportAll_ShouldStreamAllFilmsInIdOrderWithGenres() {
+        filmStorage.addLike(2, 1);
+        List<Film> exported = new ArrayList<>();
+
+        filmStorage.exportAll(exported::add);
+
+        assertThat(exported).extracting(Film::getId).containsExactly(1, 2, 3);
+        assertThat(exported.get(1).getGenres()).extracting(Genre::getId).containsExactly(1, 6);
+        assertThat(exported.get(1).getLikeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void exportAll_ShouldWalkSeveralPagesWithoutGapsOrDuplicates() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Object[]{"Фильм " + i, "Описание", LocalDate.of(2000, 1, 1), 100, 1});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO film (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)", rows);
+        List<Integer> exportedIds = new ArrayList<>();
+
+        filmStorage.exportAll(film -> exportedIds.add(film.getId()));
+
+        assertThat(exportedIds).hasSize(1003).isSorted().doesNotHaveDuplicates();
+    }
+
     // ==================== ТЕСТЫ НА ГРАНИЧНЫЕ ЗНАЧЕНИЯ ====================
 
     @Test
@@ -388,8 +679,7 @@ class FilmDbStorageTest {
         newFilm.setReleaseDate(LocalDate.now());
         newFilm.setDuration(100);
 
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
         newFilm.setMpa(mpa);
 
         Film createdFilm = filmStorage.create(newFilm);
@@ -406,8 +696,7 @@ class FilmDbStorageTest {
         newFilm.setReleaseDate(LocalDate.now());
         newFilm.setDuration(1); // Минимальная длительность
 
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
         newFilm.setMpa(mpa);
 
         Film createdFilm = filmStorage.create(newFilm);
@@ -423,8 +712,7 @@ class FilmDbStorageTest {
         newFilm.setReleaseDate(LocalDate.now());
         newFilm.setDuration(0);
 
-        Mpa mpa = new Mpa();
-        mpa.setId(1);
+        Mpa mpa = new Mpa(1, null);
         newFilm.setMpa(mpa);
 
         // Проверяем, что БД не позволяет вставить отрицательную длительность
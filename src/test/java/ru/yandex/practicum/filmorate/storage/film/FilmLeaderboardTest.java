@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FilmLeaderboardTest {
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    private FilmLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        when(filmStorage.findLikeCounts()).thenReturn(Map.of(1, 2, 2, 5, 3, 0, 4, 2));
+        when(filmStorage.findReleaseYears()).thenReturn(Map.of(1, 1999, 2, 2014, 3, 1999, 4, 2014));
+        when(filmStorage.loadGenreAdjacency())
+                .thenReturn(Map.of(1, new int[]{1, 2}, 2, new int[]{2}, 4, new int[]{1}));
+        leaderboard = new FilmLeaderboard(filmStorage, false);
+        leaderboard.reload();
+    }
+
+    @Test
+    void top_ShouldOrderByLikesThenById() {
+        assertThat(leaderboard.top(10)).containsExactly(2, 1, 4, 3);
+    }
+
+    @Test
+    void top_ShouldReturnOnlyRequestedCount() {
+        assertThat(leaderboard.top(2)).containsExactly(2, 1);
+    }
+
+    @Test
+    void increment_ShouldReorderFilms() {
+        leaderboard.increment(3, 1);
+        leaderboard.increment(3, 1);
+        leaderboard.increment(3, 1);
+        leaderboard.increment(2, -3);
+
+        assertThat(leaderboard.top(10)).containsExactly(3, 1, 2, 4);
+    }
+
+    @Test
+    void putAndRemove_ShouldAddAndDropFilms() {
+        leaderboard.put(5, 10);
+        leaderboard.remove(2);
+
+        assertThat(leaderboard.top(10)).containsExactly(5, 1, 4, 3);
+    }
+
+    @Test
+    void top_WithGenre_ShouldRankOnlyFilmsOfGenre() {
+        assertThat(leaderboard.top(10, 1, null)).containsExactly(1, 4);
+        assertThat(leaderboard.top(10, 2, null)).containsExactly(2, 1);
+        assertThat(leaderboard.top(10, 5, null)).isEmpty();
+    }
+
+    @Test
+    void top_WithYearAndGenre_ShouldApplyBothFilters() {
+        assertThat(leaderboard.top(10, null, 1999)).containsExactly(1, 3);
+        assertThat(leaderboard.top(10, 1, 2014)).containsExactly(4);
+    }
+
+    @Test
+    void describe_ShouldMoveFilmBetweenRankingsAndKeepLikes() {
+        Film film = new Film();
+        film.setId(3);
+        film.setReleaseDate(LocalDate.of(2014, 1, 1));
+        film.setGenres(Set.of(new Genre(1, "Комедия")));
+
+        leaderboard.describe(film);
+
+        assertThat(leaderboard.top(10, null, 1999)).containsExactly(1);
+        assertThat(leaderboard.top(10, 1, 2014)).containsExactly(4, 3);
+        assertThat(leaderboard.top(10)).containsExactly(2, 1, 4, 3);
+    }
+
+    @Test
+    void increment_ShouldReorderFilteredRanking() {
+        leaderboard.increment(4, 5);
+
+        assertThat(leaderboard.top(10, 1, null)).containsExactly(4, 1);
+    }
+
+    @Test
+    void approximateMode_ShouldSkipLoadingAndIgnoreUpdates() {
+        clearInvocations(filmStorage);
+        FilmLeaderboard disabled = new FilmLeaderboard(filmStorage, true);
+        Film film = new Film();
+        film.setId(1);
+        film.setReleaseDate(LocalDate.of(1999, 1, 1));
+
+        disabled.reload();
+        disabled.put(1, 3);
+        disabled.increment(2, 1);
+        disabled.describe(film);
+
+        assertThat(disabled.top(10)).isEmpty();
+        verifyNoInteractions(filmStorage);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.ChunkedSortedInts;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSimilarityIndexTest {
+
+    private FilmSimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmSimilarityIndex(16, 4);
+    }
+
+    @Test
+    void candidates_WithSameLikers_ShouldShareBucket() {
+        likeAll(1, 1, 2, 3);
+        likeAll(2, 3, 2, 1);
+        likeAll(3, 100, 200, 300);
+
+        assertThat(index.candidates(1)).containsExactly(2);
+        assertThat(index.candidates(3)).isEmpty();
+    }
+
+    @Test
+    void rebuild_ShouldMatchIncrementalSignature() {
+        likeAll(1, 1, 2, 3);
+        likeAll(2, 1, 2, 3, 4);
+
+        index.rebuild(2, new int[]{1, 2, 3});
+
+        assertThat(index.candidates(1)).containsExactly(2);
+    }
+
+    @Test
+    void rebuild_WithoutLikers_ShouldDropFilm() {
+        likeAll(1, 1, 2);
+        likeAll(2, 1, 2);
+
+        index.rebuild(2, new int[0]);
+
+        assertThat(index.candidates(1)).isEmpty();
+        assertThat(index.candidates(2)).isEmpty();
+    }
+
+    @Test
+    void removeLiker_ShouldForgetMinimaOfLeavingUsers() {
+        int[] likers = new int[200];
+        for (int i = 0; i < likers.length; i++) {
+            likers[i] = i + 1;
+        }
+        index.rebuild(1, likers);
+        ChunkedSortedInts remaining = ChunkedSortedInts.of(likers);
+        for (int userId = 1; userId <= 150; userId++) {
+            remaining = remaining.delete(userId);
+            index.removeLiker(1, userId, remaining);
+        }
+        // фильм 2 — те же оставшиеся 50 пользователей, фильм 3 — только ушедшие
+        index.rebuild(2, remaining.toArray());
+        index.rebuild(3, Arrays.copyOf(likers, 150));
+
+        assertThat(index.candidates(2)).containsExactly(1);
+        assertThat(index.candidates(3)).isEmpty();
+    }
+
+    @Test
+    void removeLiker_WhenLastLikerLeaves_ShouldDropFilm() {
+        likeAll(1, 1);
+        likeAll(2, 1);
+
+        index.removeLiker(2, 1, ChunkedSortedInts.EMPTY);
+
+        assertThat(index.candidates(1)).isEmpty();
+    }
+
+    @Test
+    void remove_ShouldDropFilmFromBuckets() {
+        likeAll(1, 5);
+        likeAll(2, 5);
+
+        index.remove(1);
+
+        assertThat(index.candidates(2)).isEmpty();
+    }
+
+    private void likeAll(int filmId, int... userIds) {
+        for (int userId : userIds) {
+            index.addLiker(filmId, userId);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LikeIndexTest {
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    private LikeIndex likeIndex;
+
+    @BeforeEach
+    void setUp() {
+        // пользователь 1 лайкнул фильмы 1 и 2; пользователь 2 — 1, 2, 3, 4; пользователь 3 — 2 и 5
+        when(filmStorage.loadLikeAdjacency()).thenReturn(Map.of(
+                1, new int[]{1, 2},
+                2, new int[]{1, 2, 3},
+                3, new int[]{2},
+                4, new int[]{2},
+                5, new int[]{3}));
+        likeIndex = new LikeIndex(filmStorage, new FilmSimilarityIndex(16, 4));
+        likeIndex.reload();
+    }
+
+    @Test
+    void likeCount_ShouldFollowLikesAndUnlikes() {
+        likeIndex.like(3, 1);
+        likeIndex.like(3, 1);
+        likeIndex.unlike(2, 3);
+
+        assertThat(likeIndex.likeCount(3)).isEqualTo(2);
+        assertThat(likeIndex.likeCount(2)).isEqualTo(2);
+        assertThat(likeIndex.likeCount(42)).isZero();
+    }
+
+    @Test
+    void concurrentLikes_ShouldKeepBothDirectionsConsistent() throws InterruptedException {
+        int threads = 8;
+        int usersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int firstUser = 100 + t * usersPerThread;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int userId = firstUser; userId < firstUser + usersPerThread; userId++) {
+                    likeIndex.like(10, userId);
+                    likeIndex.like(11 + userId % 3, userId);
+                    if (userId % 2 == 0) {
+                        likeIndex.unlike(10, userId);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        int users = threads * usersPerThread;
+        assertThat(likeIndex.likeCount(10)).isEqualTo(users / 2);
+        assertThat(likeIndex.likeCount(11) + likeIndex.likeCount(12) + likeIndex.likeCount(13)).isEqualTo(users);
+        // пользователь 100 снял лайк с фильма 10 и оставил фильм 12; нечётные соседи по фильму 12 лайкнули и 10
+        assertThat(likeIndex.recommend(100, 10)).containsExactly(10);
+        assertThat(likeIndex.similar(10)).extracting(SimilarFilm::filmId).doesNotContain(10);
+    }
+
+    @Test
+    void recommend_ShouldRankFilmsByNeighbourOverlap() {
+        // пересечение с пользователем 2 — два фильма, с пользователем 3 — один
+        assertThat(likeIndex.recommend(1, 10)).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void recommend_ShouldReturnOnlyRequestedCount() {
+        assertThat(likeIndex.recommend(1, 1)).containsExactly(3);
+        assertThat(likeIndex.recommend(1, Integer.MAX_VALUE)).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    void recommend_ShouldSkipAlreadyLikedFilms() {
+        likeIndex.like(3, 1);
+
+        assertThat(likeIndex.recommend(1, 10)).containsExactly(4, 5);
+    }
+
+    @Test
+    void recommend_WithoutLikes_ShouldReturnEmptyList() {
+        assertThat(likeIndex.recommend(42, 10)).isEmpty();
+    }
+
+    @Test
+    void similar_ShouldReturnFilmsWithIdenticalLikersFirst() {
+        List<SimilarFilm> similar = likeIndex.similar(3);
+
+        assertThat(similar).first().isEqualTo(new SimilarFilm(4, 1.0));
+        assertThat(similar).extracting(SimilarFilm::filmId).doesNotContain(3, 5);
+    }
+
+    @Test
+    void similar_ShouldFollowIncrementalLikes() {
+        likeIndex.like(4, 1);
+
+        assertThat(likeIndex.similar(1)).first().isEqualTo(new SimilarFilm(4, 1.0));
+        assertThat(likeIndex.similar(3)).doesNotContain(new SimilarFilm(4, 1.0));
+    }
+
+    @Test
+    void unlike_ShouldDropNeighbourFilms() {
+        likeIndex.unlike(2, 3);
+
+        assertThat(likeIndex.recommend(1, 10)).containsExactly(3, 4);
+    }
+
+    @Test
+    void removeUserAndFilm_ShouldCleanBothDirections() {
+        likeIndex.removeUser(2);
+        likeIndex.removeFilm(5);
+
+        assertThat(likeIndex.recommend(1, 10)).isEmpty();
+        assertThat(likeIndex.recommend(3, 10)).containsExactly(1);
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.dal.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDataRegistry;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Пропускная способность /films/popular в точном и приближённом режимах: поток лайков с распределением
+// Ципфа обновляет рейтинг, а каждые READ_EVERY лайков выдаётся топ с загрузкой фильмов из БД.
+// Замер зависит от машины, поэтому тест только печатает результат и по умолчанию не запускается:
+// mvn test -Pbenchmark
+@Tag("benchmark")
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+@Import({FilmDbStorage.class, FilmRowMapper.class, GenreRowMapper.class, MpaRowMapper.class,
+        ReferenceDataRegistry.class, GenreDbStorage.class, MpaDbStorage.class, EntityVersions.class})
+class PopularFilmsBenchmarkTest {
+
+    private static final int FILMS = 2000;
+    private static final int LIKES = 200_000;
+    private static final int READ_EVERY = 100;
+    private static final int TOP = 10;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final double EPSILON = 0.0001;
+
+    private final FilmDbStorage filmStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM film_likes");
+        jdbcTemplate.update("DELETE FROM film_genres");
+        jdbcTemplate.update("DELETE FROM film");
+        jdbcTemplate.update("ALTER TABLE film ALTER COLUMN film_id RESTART WITH 1");
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{"Фильм " + i, Date.valueOf(LocalDate.of(2000, 1, 1)), 100, 1});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO film (name, release_date, duration, mpa_id) VALUES (?, ?, ?, ?)", films);
+    }
+
+    @Test
+    void popular_ApproximateVersusExactThroughput() {
+        int[] likes = zipfLikes(new Random(42));
+
+        double exactRate = measure(likes, () -> {
+            FilmLeaderboard exact = new FilmLeaderboard(filmStorage, false);
+            exact.reload();
+            return new Ranking(filmId -> exact.increment(filmId, 1), () -> exact.top(TOP));
+        });
+        double approximateRate = measure(likes, () -> {
+            ApproximateLeaderboard approximate = new ApproximateLeaderboard(filmStorage, true, EPSILON, 0.01, 1000);
+            approximate.reload();
+            return new Ranking(filmId -> approximate.record(filmId, 1), () -> approximate.top(TOP));
+        });
+
+        System.out.printf("Лайков в раунде: %d, запрос топа каждые %d лайков. Точно: %.0f лайков/с, " +
+                        "приближённо: %.0f лайков/с (%.2fx)%n",
+                LIKES, READ_EVERY, exactRate, approximateRate, approximateRate / exactRate);
+        assertThat(exactRate).isPositive();
+        assertThat(approximateRate).isPositive();
+    }
+
+    // Лучший из MEASURED_ROUNDS раундов после прогрева; каждый раунд начинается с пустого рейтинга
+    private double measure(int[] likes, Supplier<Ranking> rankings) {
+        double best = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            Ranking ranking = rankings.get();
+            long start = System.nanoTime();
+            for (int i = 0; i < likes.length; i++) {
+                ranking.like().accept(likes[i]);
+                if (i % READ_EVERY == 0) {
+                    assertThat(filmStorage.findByIds(ranking.top().get())).isNotEmpty();
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.max(best, likes.length / (nanos / 1e9));
+            }
+        }
+        return best;
+    }
+
+    // Популярность фильма k пропорциональна 1 / k
+    private static int[] zipfLikes(Random random) {
+        double[] cumulative = new double[FILMS];
+        double sum = 0;
+        for (int k = 1; k <= FILMS; k++) {
+            sum += 1.0 / k;
+            cumulative[k - 1] = sum;
+        }
+        int[] likes = new int[LIKES];
+        for (int i = 0; i < LIKES; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            likes[i] = (index >= 0 ? index : -index - 1) + 1;
+        }
+        return likes;
+    }
+
+    private record Ranking(IntConsumer like, Supplier<List<Integer>> top) {
+    }
+}
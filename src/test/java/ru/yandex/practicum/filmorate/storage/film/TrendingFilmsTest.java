@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingFilmsTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long NOW = 1_000 * HOUR + 30 * 60_000L;
+
+    @Mock
+    private FilmDbStorage filmStorage;
+
+    private TrendingFilms trending;
+
+    @BeforeEach
+    void setUp() {
+        // фильм 1: два лайка в текущем часе; фильм 2: три лайка пять часов назад
+        when(filmStorage.findLikeTimesSince(any(Instant.class))).thenReturn(Map.of(
+                1, new long[]{NOW - 60_000L, NOW - 120_000L},
+                2, new long[]{NOW - 5 * HOUR, NOW - 5 * HOUR, NOW - 5 * HOUR}));
+        trending = new TrendingFilms(filmStorage, 60, 24);
+        trending.reload(NOW);
+    }
+
+    @Test
+    void top_ShouldCountOnlyLikesInsideWindow() {
+        assertThat(trending.top(10, 1, NOW)).containsExactly(1);
+        assertThat(trending.top(10, 6, NOW)).containsExactly(2, 1);
+    }
+
+    @Test
+    void advance_ShouldDropExpiredBuckets() {
+        long later = NOW + 20 * HOUR;
+
+        assertThat(trending.top(10, 24, later)).containsExactly(1);
+        assertThat(trending.top(10, 24, later + 5 * HOUR)).isEmpty();
+    }
+
+    @Test
+    void record_ShouldAddToCurrentBucket() {
+        trending.record(3, 1, NOW + HOUR, NOW + HOUR);
+        trending.record(3, 1, NOW + HOUR, NOW + HOUR);
+
+        assertThat(trending.top(10, 1, NOW + HOUR)).containsExactly(3);
+        assertThat(trending.top(10, 24, NOW + HOUR)).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    void record_Unlike_ShouldSubtractFromBucketOfOriginalLike() {
+        // свежий лайк фильма 2 остаётся в текущем часе, снимается один из лайков пятичасовой давности
+        trending.record(2, 1, NOW, NOW);
+        trending.record(2, -1, NOW - 5 * HOUR, NOW);
+
+        assertThat(trending.top(10, 1, NOW)).containsExactly(1, 2);
+        assertThat(trending.top(10, 24, NOW)).containsExactly(2, 1);
+    }
+
+    @Test
+    void record_UnlikeOutsideWindow_ShouldBeSkipped() {
+        // корзина 29 часов назад делит слот кольца с корзиной фильма 2 пятичасовой давности
+        trending.record(2, -3, NOW - 29 * HOUR, NOW);
+
+        assertThat(trending.top(10, 6, NOW)).containsExactly(2, 1);
+    }
+
+    @Test
+    void record_ShouldNotDriveBucketBelowZero() {
+        trending.record(1, -5, NOW, NOW);
+        trending.record(1, 1, NOW, NOW);
+        trending.record(5, 1, NOW, NOW);
+
+        // у фильмов 1 и 5 по одному лайку в текущем часе, при равенстве выше меньший id
+        assertThat(trending.top(10, 1, NOW)).containsExactly(1, 5);
+    }
+
+    @Test
+    void top_WithCountOutOfRange_ShouldNotOverflowHeap() {
+        assertThat(trending.top(Integer.MAX_VALUE, 24, NOW)).containsExactly(2, 1);
+        assertThat(trending.top(0, 24, NOW)).isEmpty();
+    }
+
+    @Test
+    void remove_ShouldForgetFilm() {
+        trending.remove(1);
+
+        assertThat(trending.top(10, 24, NOW)).containsExactly(2);
+    }
+}
@@ -278,14 +278,16 @@ class GenreDbStorageTest {
         // Получаем оригинальные данные
         List<Genre> originalGenres = genreStorage.findAll();
 
-        // Пытаемся изменить полученный объект
+        // Жанр неизменяем: «правка» возможна только новым объектом, который не затрагивает ни БД,
+        // ни уже полученный экземпляр
         if (!originalGenres.isEmpty()) {
             Genre firstGenre = originalGenres.get(0);
-            firstGenre.setName("Измененное имя");
+            Genre renamed = new Genre(firstGenre.getId(), "Измененное имя");
 
             // Проверяем, что в базе данные не изменились
-            Genre genreFromDb = genreStorage.findById(firstGenre.getId());
+            Genre genreFromDb = genreStorage.findById(renamed.getId());
             assertThat(genreFromDb.getName()).isNotEqualTo("Измененное имя");
+            assertThat(firstGenre.getName()).isEqualTo(genreFromDb.getName());
         }
     }
 
@@ -260,13 +260,14 @@ class MpaDbStorageTest {
         // Получаем оригинальные данные
         List<Mpa> originalMpas = mpaStorage.findAll();
 
-        // Пытаемся изменить полученный объект
+        // Рейтинг неизменяем: «правка» возможна только новым объектом, который не затрагивает ни БД,
+        // ни уже полученный экземпляр
         if (!originalMpas.isEmpty()) {
             Mpa firstMpa = originalMpas.get(0);
-            firstMpa.setName("Измененное имя");
+            Mpa renamed = new Mpa(firstMpa.getId(), "Измененное имя");
 
             // Проверяем, что в базе данные не изменились
-            Mpa mpaFromDb = mpaStorage.findById(firstMpa.getId());
+            Mpa mpaFromDb = mpaStorage.findById(renamed.getId());
             assertThat(mpaFromDb.getName()).isNotEqualTo("Измененное имя");
             assertThat(mpaFromDb.getName()).isEqualTo("G");
         }
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataRegistryTest {
+
+    @Mock
+    private MpaStorage mpaStorage;
+
+    @Mock
+    private GenreStorage genreStorage;
+
+    private ReferenceDataRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        Mpa mpa = new Mpa(1, "G");
+        when(mpaStorage.findAll()).thenReturn(List.of(mpa));
+        when(genreStorage.findAll()).thenReturn(List.of(new Genre(1, "Комедия"), new Genre(3, "Мультфильм")));
+        registry = new ReferenceDataRegistry(mpaStorage, genreStorage, new EntityVersions());
+        registry.refresh();
+    }
+
+    @Test
+    void lookups_ShouldBeServedFromMemory() {
+        assertThat(registry.getMpa(1).getName()).isEqualTo("G");
+        assertThat(registry.getGenre(3).getName()).isEqualTo("Мультфильм");
+        assertThat(registry.genreExists(2)).isFalse();
+        assertThat(registry.genreExists(99)).isFalse();
+        assertThat(registry.mpaExists(null)).isFalse();
+        assertThat(registry.getAllGenres()).extracting(Genre::getId).containsExactly(1, 3);
+
+        verify(mpaStorage, times(1)).findAll();
+        verify(genreStorage, times(1)).findAll();
+    }
+
+    @Test
+    void getGenre_WithUnknownId_ShouldThrowNotFoundException() {
+        assertThatThrownBy(() -> registry.getGenre(2))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Жанр с ID 2 не найден");
+        assertThatThrownBy(() -> registry.getMpa(7))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Рейтинг MPA с ID 7 не найден");
+    }
+
+    @Test
+    void refresh_ShouldReloadTables() {
+        when(genreStorage.findAll()).thenReturn(List.of(new Genre(2, "Драма")));
+
+        registry.refresh();
+
+        assertThat(registry.genreExists(1)).isFalse();
+        assertThat(registry.getGenre(2).getName()).isEqualTo("Драма");
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FriendshipGraphTest {
+
+    @Mock
+    private UserDbStorage userStorage;
+
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        Map<Integer, int[]> adjacency = new HashMap<>();
+        adjacency.put(1, new int[]{2, 3, 5, 8});
+        adjacency.put(2, new int[]{1, 3, 8});
+        when(userStorage.loadFriendAdjacency()).thenReturn(adjacency);
+        graph = new FriendshipGraph(userStorage);
+        graph.reload();
+    }
+
+    @Test
+    void commonFriends_ShouldIntersectSortedArrays() {
+        assertThat(graph.commonFriends(1, 2)).containsExactly(3, 8);
+        assertThat(graph.commonFriends(1, 4)).isEmpty();
+    }
+
+    @Test
+    void suggestFriends_ShouldRankSecondDegreeContactsByMutualFriends() {
+        // 1 -> {2, 3, 5, 8}; у 2 и 3 общий знакомый 9, у 5 — 10, у 8 — сам пользователь 1 и его друг 2
+        graph.addEdge(3, 9);
+        graph.addEdge(2, 9);
+        graph.addEdge(5, 10);
+        graph.addEdge(8, 1);
+        graph.addEdge(8, 2);
+
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(9, 10);
+        assertThat(graph.suggestFriends(1, 1)).containsExactly(9);
+        assertThat(graph.suggestFriends(1, 0)).isEmpty();
+        assertThat(graph.suggestFriends(1, Integer.MAX_VALUE)).containsExactly(9, 10);
+    }
+
+    @Test
+    void shortestPath_ShouldFollowDirectedEdges() {
+        // 1 -> 5 -> 10 -> 11 -> 12, плюс обходной путь 1 -> 2 -> 3 -> ... без продолжения
+        graph.addEdge(5, 10);
+        graph.addEdge(10, 11);
+        graph.addEdge(11, 12);
+
+        assertThat(graph.shortestPath(1, 12)).containsExactly(1, 5, 10, 11, 12);
+        assertThat(graph.shortestPath(2, 5)).containsExactly(2, 1, 5);
+        assertThat(graph.shortestPath(1, 1)).containsExactly(1);
+        assertThat(graph.shortestPath(12, 1)).isEmpty();
+    }
+
+    @Test
+    void shortestPath_ShouldRespectDepthCap() {
+        for (int i = 100; i < 110; i++) {
+            graph.addEdge(i, i + 1);
+        }
+
+        assertThat(graph.shortestPath(100, 106)).hasSize(7);
+        assertThat(graph.shortestPath(100, 107)).isEmpty();
+    }
+
+    @Test
+    void addEdge_ShouldKeepArraySortedAndIgnoreDuplicates() {
+        graph.addEdge(1, 4);
+        graph.addEdge(1, 4);
+        graph.addEdge(4, 1);
+
+        assertThat(graph.friendsOf(1)).containsExactly(2, 3, 4, 5, 8);
+        assertThat(graph.friendsOf(4)).containsExactly(1);
+    }
+
+    @Test
+    void removeEdgeAndUser_ShouldUpdateAdjacency() {
+        graph.removeEdge(1, 5);
+        graph.removeUser(3);
+
+        assertThat(graph.friendsOf(1)).containsExactly(2, 8);
+        assertThat(graph.friendsOf(2)).containsExactly(1, 8);
+        assertThat(graph.shortestPath(1, 5)).isEmpty();
+    }
+}
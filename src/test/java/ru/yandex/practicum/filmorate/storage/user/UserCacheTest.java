@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private UserDbStorage userStorage;
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(userStorage, new EntityVersions(), 100, 600, 5);
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndReturnCopies() {
+        when(userStorage.findById(1)).thenReturn(Optional.of(user(1, "user1")));
+
+        userCache.get(1).setLogin("changed");
+        User result = userCache.get(1);
+
+        assertThat(result.getLogin()).isEqualTo("user1");
+        verify(userStorage, times(1)).findById(1);
+        CacheStats stats = userCache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_WithMissingUser_ShouldCacheAbsence() {
+        when(userStorage.findById(99)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userCache.get(99))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Пользователь с ID 99 не найден");
+        assertThatThrownBy(() -> userCache.get(99)).isInstanceOf(NotFoundException.class);
+        verify(userStorage, times(1)).findById(99);
+    }
+
+    @Test
+    void get_WithExpiredNegativeEntry_ShouldQueryAgain() {
+        userCache = new UserCache(userStorage, new EntityVersions(), 100, 600, 0);
+        when(userStorage.findById(99)).thenReturn(Optional.empty(), Optional.of(user(99, "late")));
+
+        assertThatThrownBy(() -> userCache.get(99)).isInstanceOf(NotFoundException.class);
+
+        assertThat(userCache.get(99).getLogin()).isEqualTo("late");
+        verify(userStorage, times(2)).findById(99);
+    }
+
+    @Test
+    void invalidate_ShouldDropNegativeEntry() {
+        when(userStorage.findById(4)).thenReturn(Optional.empty(), Optional.of(user(4, "user4")));
+        assertThatThrownBy(() -> userCache.get(4)).isInstanceOf(NotFoundException.class);
+
+        userCache.invalidate(4);
+
+        assertThat(userCache.get(4).getLogin()).isEqualTo("user4");
+    }
+
+    @Test
+    void validateExist_ShouldLoadMissesInOneQueryAndRememberAbsentIds() {
+        when(userStorage.findByIds(any(int[].class)))
+                .thenReturn(List.of(user(1, "user1"), user(2, "user2")), List.of());
+
+        userCache.validateExist(List.of(1, 2));
+        assertThatThrownBy(() -> userCache.validateExist(List.of(2, 3)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Пользователь с ID 3 не найден");
+        assertThatThrownBy(() -> userCache.validateExist(List.of(1, 3))).isInstanceOf(NotFoundException.class);
+
+        verify(userStorage, times(2)).findByIds(any(int[].class));
+        verify(userStorage, never()).findById(any());
+    }
+
+    private static User user(int id, String login) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin(login);
+        return user;
+    }
+}
@@ -10,12 +10,16 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import ru.yandex.practicum.filmorate.dal.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -51,6 +55,13 @@ class UserDbStorageTest {
         assertThat(users).hasSize(3);
     }
 
+    @Test
+    void findPage_ShouldReturnUsersAfterCursorInIdOrder() {
+        assertThat(userStorage.findPage(null, 2)).extracting(User::getId).containsExactly(1, 2);
+        assertThat(userStorage.findPage(2, 2)).extracting(User::getId).containsExactly(3);
+        assertThat(userStorage.findPage(3, 2)).isEmpty();
+    }
+
     @Test
     void userById_WithValidId_ShouldReturnUser() {
         User user = userStorage.userById(1);
@@ -69,6 +80,38 @@ class UserDbStorageTest {
                 .hasMessageContaining("Пользователь с ID 999 не найден");
     }
 
+    @Test
+    void createBatch_ShouldAssignIdsInOrderAndDefaultNames() {
+        List<User> users = new ArrayList<>();
+        for (int i = 4; i <= 6; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@test.com");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, i));
+            users.add(user);
+        }
+
+        List<User> created = userStorage.createBatch(users);
+
+        assertThat(created).extracting(User::getId).containsExactly(4, 5, 6);
+        assertThat(userStorage.userById(5).getName()).isEqualTo("user5");
+        assertThat(userStorage.userById(6).getVersion()).isZero();
+    }
+
+    @Test
+    void findByEmailsOrLogins_ShouldMatchEitherColumnInOneQuery() {
+        List<User> found = userStorage.findByEmailsOrLogins(
+                List.of("user1@test.com", "nobody@test.com"), List.of("user2", "nobody"));
+
+        assertThat(found).extracting(User::getId).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void findById_ShouldReturnEmptyForMissingUser() {
+        assertThat(userStorage.findById(1)).get().extracting(User::getLogin).isEqualTo("user1");
+        assertThat(userStorage.findById(999)).isEmpty();
+    }
+
     @Test
     void create_ShouldAddNewUser() {
         User newUser = new User();
@@ -131,6 +174,20 @@ class UserDbStorageTest {
         assertThat(retrievedUser.getEmail()).isEqualTo("updated@test.com");
     }
 
+    @Test
+    void update_WithStaleVersion_ShouldThrowConflictException() {
+        User first = userStorage.userById(1);
+        User second = userStorage.userById(1);
+        first.setName("First Edit");
+        second.setName("Second Edit");
+        assertThat(userStorage.update(first).getVersion()).isEqualTo(1L);
+
+        assertThatThrownBy(() -> userStorage.update(second))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("Пользователь с ID 1 изменён другим запросом");
+        assertThat(userStorage.userById(1).getName()).isEqualTo("First Edit");
+    }
+
     @Test
     void update_WithInvalidId_ShouldThrowNotFoundException() {
         User user = new User();
@@ -144,6 +201,15 @@ class UserDbStorageTest {
                 .hasMessageContaining("Пользователь с ID 999 не найден");
     }
 
+    @Test
+    void update_WithoutId_ShouldThrowNotFoundException() {
+        User user = userStorage.userById(1);
+        user.setId(null);
+        assertThatThrownBy(() -> userStorage.update(user))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Пользователь с ID null не найден");
+    }
+
     @Test
     void remove_ShouldDeleteUser() {
         userStorage.remove(1);
@@ -153,6 +219,19 @@ class UserDbStorageTest {
         assertThat(users).hasSize(2);
     }
 
+    @Test
+    void removeWithLikes_ShouldReturnLikedFilmsWithLikeTimes() {
+        Timestamp likedAt = Timestamp.valueOf("2024-03-01 12:00:00");
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id, created_at) VALUES (?, ?, ?)", 2, 1, likedAt);
+        jdbcTemplate.update("UPDATE film SET like_count = 1 WHERE film_id = 2");
+
+        Map<Integer, Long> removed = userStorage.removeWithLikes(1);
+
+        assertThat(removed).containsExactly(Map.entry(2, likedAt.getTime()));
+        assertThat(jdbcTemplate.queryForObject("SELECT like_count FROM film WHERE film_id = 2", Integer.class))
+                .isZero();
+    }
+
     @Test
     void remove_WithInvalidId_ShouldThrowNotFoundException() {
         assertThatThrownBy(() -> userStorage.remove(999))
@@ -174,6 +253,21 @@ class UserDbStorageTest {
                 .hasMessageContaining("Пользователь с ID 999 не найден");
     }
 
+    @Test
+    void existsById_ShouldCheckRowOnly() {
+        assertThat(userStorage.existsById(1)).isTrue();
+        assertThat(userStorage.existsById(999)).isFalse();
+    }
+
+    @Test
+    void validateUsersExist_WithMissingId_ShouldReportFirstMissing() {
+        userStorage.validateUsersExist(List.of(1, 2, 3));
+
+        assertThatThrownBy(() -> userStorage.validateUsersExist(List.of(2, 999)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Пользователь с ID 999 не найден");
+    }
+
     @Test
     void addFriend_ShouldAddFriend() {
         userStorage.addFriend(1, 2);
@@ -243,25 +337,21 @@ class UserDbStorageTest {
     }
 
     @Test
-    void getCommonFriends_ShouldReturnCommonFriends() {
-        userStorage.addFriend(1, 2);
-        userStorage.addFriend(3, 2);
-        List<User> commonFriends = userStorage.getCommonFriends(1, 3);
-        assertThat(commonFriends).hasSize(1);
-        assertThat(commonFriends.get(0).getId()).isEqualTo(2);
-    }
-
-    @Test
-    void getCommonFriends_WithNoCommonFriends_ShouldReturnEmptyList() {
+    void loadFriendAdjacency_ShouldReturnSortedArraysPerUser() {
+        userStorage.addFriend(1, 3);
         userStorage.addFriend(1, 2);
         userStorage.addFriend(3, 1);
-        List<User> commonFriends = userStorage.getCommonFriends(1, 3);
-        assertThat(commonFriends).isEmpty();
+
+        Map<Integer, int[]> adjacency = userStorage.loadFriendAdjacency();
+
+        assertThat(adjacency).containsOnlyKeys(1, 3);
+        assertThat(adjacency.get(1)).containsExactly(2, 3);
+        assertThat(adjacency.get(3)).containsExactly(1);
     }
 
     @Test
-    void getCommonFriends_WithInvalidUserId_ShouldThrowNotFoundException() {
-        assertThatThrownBy(() -> userStorage.getCommonFriends(999, 1))
-                .isInstanceOf(NotFoundException.class);
+    void findByIds_ShouldPreserveRequestedOrder() {
+        assertThat(userStorage.findByIds(new int[]{3, 999, 1})).extracting(User::getId).containsExactly(3, 1);
+        assertThat(userStorage.findByIds(new int[0])).isEmpty();
     }
 }
\ No newline at end of file